@@ -0,0 +1,88 @@
+// Prueba de carga con k6 (https://k6.io) para comparar el modo normal y el modo con hilos virtuales.
+//
+//   Modo normal:   ./mvnw spring-boot:run
+//   Modo virtual:  ./mvnw -Pjava21 spring-boot:run -Dspring-boot.run.profiles=virtual
+//   Prueba:        k6 run -e MODO=normal -e BASE_URL=http://localhost:8080 -e USUARIOS=500 carga/productos-k6.js
+//
+// El resumen se imprime y además se guarda en carga/resultados-<MODO>.json para comparar ambos modos.
+//
+// Se crean productos al inicio y luego cada usuario virtual mezcla lecturas por ID,
+// listados paginados, consultas por categoría y actualizaciones de stock.
+// Cada usuario virtual envía su propia X-API-Key (k6-1, k6-2, ...). Para que cada uno tenga su propia
+// cuota las claves se registran al arrancar, por ejemplo con 500 usuarios:
+//   --productos.admision.tasa.api-keys=$(seq -s, -f 'k6-%g' 1 500)
+// Sin registrarlas todas las peticiones comparten la cuota de la IP desde la que corre k6.
+// Para medir la capacidad máxima sin cuotas se arranca la aplicación con
+// --productos.admision.tasa.habilitado=false; las respuestas 429/503 se cuentan en el check "admitida".
+import http from 'k6/http';
+import { check } from 'k6';
+import { textSummary } from 'https://jslib.k6.io/k6-summary/0.0.2/index.js';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USUARIOS = parseInt(__ENV.USUARIOS || '200');
+const MODO = __ENV.MODO || 'normal';
+const CATEGORIAS = ['ELECTRONICA', 'ROPA', 'ALIMENTOS', 'HOGAR', 'DEPORTES'];
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+
+export const options = {
+    scenarios: {
+        mezcla: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: USUARIOS },
+                { duration: '2m', target: USUARIOS },
+                { duration: '15s', target: 0 },
+            ],
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const productos = [];
+    for (let i = 0; i < 1000; i++) {
+        productos.push({
+            nombre: `Producto de carga ${i}`,
+            descripcion: 'Generado por la prueba de carga',
+            precio: 10 + (i % 100),
+            stock: 100,
+            categoria: CATEGORIAS[i % CATEGORIAS.length],
+        });
+    }
+    const respuesta = http.post(`${BASE_URL}/api/productos/batch`, JSON.stringify(productos), JSON_HEADERS);
+    return { ids: respuesta.json().map((r) => r.id).filter((id) => id) };
+}
+
+export default function (datos) {
+    const id = datos.ids[Math.floor(Math.random() * datos.ids.length)];
+    const sorteo = Math.random();
+    const cliente = { headers: { 'X-API-Key': `k6-${__VU}` } };
+    const clienteJson = { headers: { 'X-API-Key': `k6-${__VU}`, 'Content-Type': 'application/json' } };
+    let respuesta;
+
+    if (sorteo < 0.6) {
+        respuesta = http.get(`${BASE_URL}/api/productos/${id}`, cliente);
+        check(respuesta, { 'GET por ID 200': (r) => r.status === 200 });
+    } else if (sorteo < 0.75) {
+        respuesta = http.get(`${BASE_URL}/api/productos?limite=50`, cliente);
+        check(respuesta, { 'listado 200': (r) => r.status === 200 });
+    } else if (sorteo < 0.9) {
+        const categoria = CATEGORIAS[Math.floor(Math.random() * CATEGORIAS.length)];
+        respuesta = http.get(`${BASE_URL}/api/productos/categoria/${categoria}`, cliente);
+        check(respuesta, { 'categoría 200': (r) => r.status === 200 });
+    } else {
+        const cuerpo = JSON.stringify({ stock: Math.floor(Math.random() * 100) });
+        respuesta = http.patch(`${BASE_URL}/api/productos/${id}/stock`, cuerpo, clienteJson);
+        check(respuesta, { 'PATCH stock 200': (r) => r.status === 200 });
+    }
+    // Proporción de peticiones que pasaron el control de admisión (cuota y descarte de carga)
+    check(respuesta, { 'admitida (sin 429/503)': (r) => r.status !== 429 && r.status !== 503 });
+}
+
+export function handleSummary(datos) {
+    return {
+        stdout: textSummary(datos, { indent: ' ', enableColors: true }),
+        [`carga/resultados-${MODO}.json`]: JSON.stringify(datos, null, 2),
+    };
+}
@@ -0,0 +1,76 @@
+package com.utn.productos_api.benchmark;
+
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.model.Producto;
+import com.utn.productos_api.service.ColaStockAsincrona;
+import com.utn.productos_api.service.ProductoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PATCH /{id}/stock sincrónico contra el modo asíncrono (diario en disco, con y sin fsync),
+ * con varios hilos actualizando productos al azar como una ráfaga de lectores de códigos.
+ * Con fsync los hilos comparten cada force del diario (fsync en grupo).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ActualizarStockAsincronoBenchmark {
+
+    private static final int PRODUCTOS = 1000;
+
+    @Param({"true", "false"})
+    private boolean fsync;
+
+    private Path directorio;
+    private ConfigurableApplicationContext contexto;
+    private ProductoService productoService;
+    private ColaStockAsincrona colaStockAsincrona;
+    private Long[] ids;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException {
+        directorio = Files.createTempDirectory("diario-stock");
+        contexto = AplicacionBenchmark.iniciar("stockasincrono",
+                "productos.stock.asincrono.habilitado=true",
+                "productos.stock.asincrono.directorio=" + directorio,
+                "productos.stock.asincrono.fsync=" + fsync);
+        productoService = contexto.getBean(ProductoService.class);
+        colaStockAsincrona = contexto.getBean(ColaStockAsincrona.class);
+        AplicacionBenchmark.poblar(productoService, PRODUCTOS);
+        ids = productoService.obtenerPagina(null, PRODUCTOS).getElementos().stream()
+                .map(ProductoResponseDTO::id)
+                .toArray(Long[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        contexto.close();
+        FileSystemUtils.deleteRecursively(directorio);
+    }
+
+    @Benchmark
+    public Producto sincronico() {
+        return productoService.actualizarStock(idAlAzar(), ThreadLocalRandom.current().nextInt(1000));
+    }
+
+    @Benchmark
+    public ColaStockAsincrona.Aceptado asincrono() {
+        return colaStockAsincrona.aceptar(idAlAzar(), ThreadLocalRandom.current().nextInt(1000));
+    }
+
+    private Long idAlAzar() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
@@ -0,0 +1,45 @@
+package com.utn.productos_api.benchmark;
+
+import com.utn.productos_api.model.Producto;
+import com.utn.productos_api.service.ProductoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * actualizarStock con varios hilos modificando el mismo producto (caso "flash sale").
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class ActualizarStockBenchmark {
+
+    private ConfigurableApplicationContext contexto;
+    private ProductoService productoService;
+    private Long idProducto;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = AplicacionBenchmark.iniciar("stock");
+        productoService = contexto.getBean(ProductoService.class);
+        List<Producto> creados = productoService.crearProductos(List.of(AplicacionBenchmark.producto(1)));
+        idProducto = creados.get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Producto actualizarStock() {
+        return productoService.actualizarStock(idProducto, ThreadLocalRandom.current().nextInt(1000));
+    }
+}
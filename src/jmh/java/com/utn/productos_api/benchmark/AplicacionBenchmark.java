@@ -0,0 +1,94 @@
+package com.utn.productos_api.benchmark;
+
+import com.utn.productos_api.ProductosApiApplication;
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.model.Categoria;
+import com.utn.productos_api.model.Producto;
+import com.utn.productos_api.service.ProductoService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilidades compartidas por los benchmarks: arranque del contexto de Spring
+ * (sin servidor web, con una base H2 en memoria propia) y generación de datos.
+ */
+final class AplicacionBenchmark {
+
+    private static final Categoria[] CATEGORIAS = Categoria.values();
+
+    private AplicacionBenchmark() {
+    }
+
+    static ConfigurableApplicationContext iniciar(String nombreBase) {
+        return iniciar(nombreBase, WebApplicationType.NONE);
+    }
+
+    /**
+     * Igual que {@link #iniciar(String)} pero con propiedades adicionales ("clave=valor").
+     */
+    static ConfigurableApplicationContext iniciar(String nombreBase, String... propiedades) {
+        return iniciar(nombreBase, WebApplicationType.NONE, propiedades);
+    }
+
+    /**
+     * Igual que {@link #iniciar(String)} pero con el servidor web levantado en un puerto libre
+     * (se obtiene con {@code local.server.port}).
+     */
+    static ConfigurableApplicationContext iniciarWeb(String nombreBase) {
+        return iniciar(nombreBase, WebApplicationType.SERVLET);
+    }
+
+    private static ConfigurableApplicationContext iniciar(String nombreBase, WebApplicationType tipo, String... propiedades) {
+        return new SpringApplicationBuilder(ProductosApiApplication.class)
+                .web(tipo)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:" + nombreBase + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.h2.console.enabled=false",
+                        // Los benchmarks generan la carga desde un solo cliente: sin cuota ni descarte
+                        "productos.admision.tasa.habilitado=false",
+                        "productos.admision.carga.habilitado=false",
+                        "logging.level.root=WARN")
+                .properties(propiedades)
+                .run();
+    }
+
+    /**
+     * Inserta la cantidad indicada de productos, repartidos en partes iguales entre las categorías.
+     */
+    static void poblar(ProductoService productoService, int cantidad) {
+        int bloque = 1000;
+        for (int desde = 0; desde < cantidad; desde += bloque) {
+            List<Producto> productos = new ArrayList<>(bloque);
+            for (int i = desde; i < Math.min(desde + bloque, cantidad); i++) {
+                productos.add(producto(i));
+            }
+            productoService.crearProductos(productos);
+        }
+    }
+
+    static Producto producto(int i) {
+        Producto producto = new Producto();
+        producto.setNombre("Producto " + i);
+        producto.setDescripcion("Descripción del producto número " + i + " para pruebas de rendimiento");
+        producto.setPrecio(10.0 + (i % 1000));
+        producto.setStock(i % 500);
+        producto.setCategoria(CATEGORIAS[i % CATEGORIAS.length]);
+        return producto;
+    }
+
+    static List<ProductoResponseDTO> respuestas(int cantidad) {
+        List<ProductoResponseDTO> dtos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Producto producto = producto(i);
+            dtos.add(new ProductoResponseDTO((long) i + 1, producto.getNombre(), producto.getDescripcion(),
+                    producto.getPrecio(), producto.getStock(), producto.getCategoria()));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,53 @@
+package com.utn.productos_api.benchmark;
+
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.model.Categoria;
+import com.utn.productos_api.model.Producto;
+import com.utn.productos_api.repository.ProductoRepository;
+import com.utn.productos_api.service.ProductoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consulta por categoría contra una base H2 con datos.
+ * Se llama al repositorio directamente para medir la consulta sin la caché del servicio.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ConsultaCategoriaBenchmark {
+
+    @Param({"10000", "100000"})
+    private int filas;
+
+    private ConfigurableApplicationContext contexto;
+    private ProductoRepository productoRepository;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = AplicacionBenchmark.iniciar("categoria" + filas);
+        AplicacionBenchmark.poblar(contexto.getBean(ProductoService.class), filas);
+        productoRepository = contexto.getBean(ProductoRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public List<Producto> findByCategoria() {
+        return productoRepository.findByCategoria(Categoria.ELECTRONICA);
+    }
+
+    @Benchmark
+    public List<ProductoResponseDTO> findResumenByCategoria() {
+        return productoRepository.findResumenByCategoria(Categoria.ELECTRONICA);
+    }
+}
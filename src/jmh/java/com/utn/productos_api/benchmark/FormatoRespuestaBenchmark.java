@@ -0,0 +1,84 @@
+package com.utn.productos_api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compara los formatos de respuesta de los listados: JSON, CBOR y Smile, con y sin gzip.
+ * El tiempo medido es el de CPU para serializar (y comprimir) la lista; el tamaño de cada
+ * combinación sale como el contador secundario "bytes" junto al tiempo en los resultados.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class FormatoRespuestaBenchmark {
+
+    @Param({"1000", "100000"})
+    private int tamanio;
+
+    @Param({"json", "cbor", "smile"})
+    private String formato;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private List<ProductoResponseDTO> productos;
+    private long bytes;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws IOException {
+        objectMapper = switch (formato) {
+            case "cbor" -> CBORMapper.builder().findAndAddModules().build();
+            case "smile" -> SmileMapper.builder().findAndAddModules().build();
+            default -> JsonMapper.builder().findAndAddModules().build();
+        };
+        productos = AplicacionBenchmark.respuestas(tamanio);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        escribir(buffer);
+        bytes = buffer.size();
+    }
+
+    @Benchmark
+    public void serializar(Respuesta respuesta) throws IOException {
+        // Se descarta la salida para medir solo la serialización y la compresión
+        escribir(OutputStream.nullOutputStream());
+        respuesta.bytes = bytes;
+    }
+
+    /**
+     * Tamaño de la respuesta serializada. EVENTS no se divide por el tiempo ni por las operaciones:
+     * JMH informa el valor del campo tal cual, con un solo hilo.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Respuesta {
+
+        public long bytes;
+    }
+
+    private void escribir(OutputStream destino) throws IOException {
+        if (gzip) {
+            try (GZIPOutputStream comprimido = new GZIPOutputStream(destino)) {
+                objectMapper.writeValue(comprimido, productos);
+            }
+        } else {
+            objectMapper.writeValue(destino, productos);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.utn.productos_api.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ráfaga de GET /api/productos/{id} con IDs inexistentes al azar, desde 8 hilos,
+ * contra la aplicación levantada con servidor web. Mide cuántas respuestas 404 por segundo
+ * se sostienen; con {@code -prof gc} se ve la asignación por respuesta.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(8)
+@State(Scope.Benchmark)
+public class Inundacion404Benchmark {
+
+    private ConfigurableApplicationContext contexto;
+    private HttpClient cliente;
+    private String base;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = AplicacionBenchmark.iniciarWeb("inundacion404");
+        base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port") + "/api/productos/";
+        cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public int getInexistente() throws IOException, InterruptedException {
+        long id = ThreadLocalRandom.current().nextLong(1_000_000, Long.MAX_VALUE);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + id)).GET().build();
+        HttpResponse<Void> respuesta = cliente.send(request, HttpResponse.BodyHandlers.discarding());
+        if (respuesta.statusCode() != 404) {
+            throw new IllegalStateException("Se esperaba 404 y llegó " + respuesta.statusCode());
+        }
+        return respuesta.statusCode();
+    }
+}
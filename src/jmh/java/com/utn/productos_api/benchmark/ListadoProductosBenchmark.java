@@ -0,0 +1,59 @@
+package com.utn.productos_api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.service.PaginaCursor;
+import com.utn.productos_api.service.ProductoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Camino completo de GET /api/productos (página de 1000 desde la mitad de la tabla) y recorrido
+ * del catálogo que usa la exportación: consulta proyectada a ProductoResponseDTO y stock vigente.
+ * Con {@code -prof gc} se ven los bytes asignados por página.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ListadoProductosBenchmark {
+
+    private static final int FILAS = 100_000;
+    private static final int LIMITE = 1000;
+
+    private ConfigurableApplicationContext contexto;
+    private ProductoService productoService;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = AplicacionBenchmark.iniciar("listado");
+        productoService = contexto.getBean(ProductoService.class);
+        objectMapper = contexto.getBean(ObjectMapper.class);
+        AplicacionBenchmark.poblar(productoService, FILAS);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public void paginaSerializada() throws IOException {
+        PaginaCursor<ProductoResponseDTO> pagina = productoService.obtenerPagina((long) FILAS / 2, LIMITE);
+        objectMapper.writeValue(OutputStream.nullOutputStream(), pagina.getElementos());
+    }
+
+    @Benchmark
+    public long recorrerCatalogo() {
+        long[] filas = {0};
+        productoService.recorrerTodos(producto -> filas[0]++);
+        return filas[0];
+    }
+}
@@ -0,0 +1,58 @@
+package com.utn.productos_api.benchmark;
+
+import com.utn.productos_api.dto.ProductoDTO;
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.model.Producto;
+import com.utn.productos_api.service.ProductoService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de las conversiones entidad <-> DTO de ProductoService (generadas por MapStruct en ProductoMapper).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapeoProductoBenchmark {
+
+    private ConfigurableApplicationContext contexto;
+    private ProductoService productoService;
+    private Producto producto;
+    private ProductoDTO productoDTO;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        contexto = AplicacionBenchmark.iniciar("mapeo");
+        productoService = contexto.getBean(ProductoService.class);
+
+        producto = AplicacionBenchmark.producto(1);
+        producto.setId(1L);
+
+        productoDTO = new ProductoDTO();
+        productoDTO.setNombre(producto.getNombre());
+        productoDTO.setDescripcion(producto.getDescripcion());
+        productoDTO.setPrecio(producto.getPrecio());
+        productoDTO.setStock(producto.getStock());
+        productoDTO.setCategoria(producto.getCategoria());
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public ProductoResponseDTO convertirAProductoResponseDTO() {
+        return productoService.convertirAProductoResponseDTO(producto);
+    }
+
+    @Benchmark
+    public Producto convertirAProducto() {
+        return productoService.convertirAProducto(productoDTO);
+    }
+}
@@ -0,0 +1,51 @@
+package com.utn.productos_api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utn.productos_api.exception.ErrorResponse;
+import com.utn.productos_api.exception.GlobalExceptionHandler;
+import com.utn.productos_api.exception.ProductoNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de armar y serializar una respuesta 404, llamando al manejador directamente.
+ * Conviene correrlo con {@code -prof gc} para ver los bytes asignados por operación;
+ * la línea de base crea una excepción común (con stack trace) para comparar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+@State(Scope.Benchmark)
+public class RespuestaErrorBenchmark {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ServletWebRequest request =
+            new ServletWebRequest(new MockHttpServletRequest("GET", "/api/productos/123"));
+
+    @Benchmark
+    public RuntimeException excepcionConStackTrace() {
+        return new RuntimeException("Producto no encontrado con ID: " + 123L);
+    }
+
+    @Benchmark
+    public ProductoNotFoundException excepcionDominio() {
+        return new ProductoNotFoundException(123L);
+    }
+
+    @Benchmark
+    public void respuesta404() throws IOException {
+        ResponseEntity<ErrorResponse> respuesta =
+                handler.handleProductoNotFoundException(new ProductoNotFoundException(123L), request);
+        mapper.writeValue(OutputStream.nullOutputStream(), respuesta.getBody());
+    }
+}
@@ -0,0 +1,41 @@
+package com.utn.productos_api.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de serializar con Jackson la lista de ProductoResponseDTO que devuelven los endpoints de listado.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SerializacionProductosBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int tamanio;
+
+    private ObjectMapper objectMapper;
+    private List<ProductoResponseDTO> productos;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        productos = AplicacionBenchmark.respuestas(tamanio);
+    }
+
+    @Benchmark
+    public void serializarLista() throws IOException {
+        // Se descarta la salida para medir solo la serialización
+        objectMapper.writeValue(OutputStream.nullOutputStream(), productos);
+    }
+}
@@ -0,0 +1,18 @@
+package com.utn.productos_api.admision;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fichas que consume un endpoint de la cuota de cada cliente (ver LimiteTasaInterceptor).
+ * Los endpoints sin esta anotación cuestan 1; los listados y las descargas completas cuestan más
+ * porque hacen mucho más trabajo que leer un producto por ID.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CostoPeticion {
+
+    int value();
+}
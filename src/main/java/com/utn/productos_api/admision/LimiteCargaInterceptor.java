@@ -0,0 +1,142 @@
+package com.utn.productos_api.admision;
+
+import com.utn.productos_api.exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongSupplier;
+
+/**
+ * Descarte de carga adaptativo: limita cuántas peticiones se atienden a la vez y ajusta ese límite
+ * según la latencia observada (AIMD). Mientras las peticiones terminan dentro de la latencia objetivo
+ * el límite sube de a poco (+1 cada "límite" peticiones); cuando una tarda más, baja un 10%
+ * (como mucho una vez por cada latencia objetivo, para que una ráfaga lenta no lo derrumbe).
+ * Las peticiones que superan el límite reciben 503 con Retry-After al instante, en lugar de
+ * esperar en la cola y hacer más lentas a todas las demás.
+ *
+ * Cuenta el tiempo en que la petición ocupa un hilo del servidor: en las asíncronas (streaming,
+ * long-poll, SSE) hasta que el controlador devuelve el resultado diferido.
+ */
+@Component
+public class LimiteCargaInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String ATRIBUTO_INICIO = LimiteCargaInterceptor.class.getName() + ".inicio";
+    private static final double FACTOR_REDUCCION = 0.9;
+
+    private final boolean habilitado;
+    private final double limiteMinimo;
+    private final double limiteMaximo;
+    private final long latenciaObjetivoNs;
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final Counter rechazos;
+    // System.nanoTime en producción; las pruebas lo avanzan a mano
+    private final LongSupplier reloj;
+
+    // El límite es un double (crece de a fracciones) guardado como bits para ajustarlo con CAS, sin locks
+    private final AtomicLong limite;
+    private final AtomicLong ultimaReduccion;
+
+    @Autowired
+    public LimiteCargaInterceptor(MeterRegistry meterRegistry,
+                                  @Value("${productos.admision.carga.habilitado:true}") boolean habilitado,
+                                  @Value("${productos.admision.carga.limite-inicial:100}") int limiteInicial,
+                                  @Value("${productos.admision.carga.limite-minimo:10}") int limiteMinimo,
+                                  @Value("${productos.admision.carga.limite-maximo:200}") int limiteMaximo,
+                                  @Value("${productos.admision.carga.latencia-objetivo:250ms}") Duration latenciaObjetivo) {
+        this(meterRegistry, habilitado, limiteInicial, limiteMinimo, limiteMaximo, latenciaObjetivo, System::nanoTime);
+    }
+
+    LimiteCargaInterceptor(MeterRegistry meterRegistry, boolean habilitado, int limiteInicial, int limiteMinimo,
+                           int limiteMaximo, Duration latenciaObjetivo, LongSupplier reloj) {
+        this.habilitado = habilitado;
+        this.reloj = reloj;
+        this.limite = new AtomicLong(Double.doubleToLongBits(limiteInicial));
+        this.limiteMinimo = limiteMinimo;
+        this.limiteMaximo = limiteMaximo;
+        this.latenciaObjetivoNs = latenciaObjetivo.toNanos();
+        this.ultimaReduccion = new AtomicLong(reloj.getAsLong());
+        this.rechazos = Counter.builder("productos.admision.rechazos")
+                .description("Peticiones rechazadas antes de llegar al controlador")
+                .tag("motivo", "sobrecarga")
+                .register(meterRegistry);
+        Gauge.builder("productos.admision.limite", this, LimiteCargaInterceptor::limite)
+                .description("Peticiones simultáneas admitidas según el último ajuste")
+                .register(meterRegistry);
+        Gauge.builder("productos.admision.en.curso", enCurso, AtomicInteger::get)
+                .description("Peticiones que se están atendiendo")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!habilitado || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        if (enCurso.incrementAndGet() > (int) limite()) {
+            enCurso.decrementAndGet();
+            rechazos.increment();
+            throw new ServicioSaturadoException("El servicio está sobrecargado, reintente en unos instantes");
+        }
+        request.setAttribute(ATRIBUTO_INICIO, reloj.getAsLong());
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        liberar(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        liberar(request);
+    }
+
+    // Solo la primera llamada por petición libera el lugar (el atributo se quita al hacerlo)
+    private void liberar(HttpServletRequest request) {
+        Object inicio = request.getAttribute(ATRIBUTO_INICIO);
+        if (inicio == null) {
+            return;
+        }
+        request.removeAttribute(ATRIBUTO_INICIO);
+        enCurso.decrementAndGet();
+        long ahora = reloj.getAsLong();
+        ajustar(ahora - (Long) inicio, ahora);
+    }
+
+    private void ajustar(long latenciaNs, long ahora) {
+        if (latenciaNs > latenciaObjetivoNs) {
+            long ultima = ultimaReduccion.get();
+            if (ahora - ultima >= latenciaObjetivoNs && ultimaReduccion.compareAndSet(ultima, ahora)) {
+                modificarLimite(actual -> Math.max(limiteMinimo, actual * FACTOR_REDUCCION));
+            }
+        } else if (enCurso.get() * 2 >= limite()) {
+            // Solo se agranda si se está usando: con poca carga el límite no crece sin medida
+            modificarLimite(actual -> Math.min(limiteMaximo, actual + 1 / actual));
+        }
+    }
+
+    private double limite() {
+        return Double.longBitsToDouble(limite.get());
+    }
+
+    private void modificarLimite(DoubleUnaryOperator cambio) {
+        long anterior;
+        long nuevo;
+        do {
+            anterior = limite.get();
+            nuevo = Double.doubleToLongBits(cambio.applyAsDouble(Double.longBitsToDouble(anterior)));
+        } while (!limite.compareAndSet(anterior, nuevo));
+    }
+}
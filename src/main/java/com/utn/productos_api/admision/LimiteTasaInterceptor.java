@@ -0,0 +1,141 @@
+package com.utn.productos_api.admision;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.utn.productos_api.exception.LimiteExcedidoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Limita la tasa de peticiones de cada cliente con un "token bucket": cada cliente tiene una cubeta
+ * de hasta {@code capacidad} fichas que se recarga a {@code recarga-por-segundo}, y cada petición
+ * consume las fichas de su endpoint (@CostoPeticion, 1 por defecto). Sin fichas suficientes
+ * se responde 429 con Retry-After, sin llegar al controlador.
+ *
+ * El cliente se identifica por la cabecera X-API-Key solo si la clave está registrada en
+ * productos.admision.tasa.api-keys; si no la envía o no es conocida, por su dirección IP. Así un cliente
+ * no puede conseguir una cubeta llena nueva (ni llenar el mapa de cubetas) inventando una clave por petición.
+ * Las cubetas de clientes inactivos se descartan solas (Caffeine, expireAfterAccess).
+ */
+@Component
+public class LimiteTasaInterceptor implements HandlerInterceptor {
+
+    public static final String HEADER_API_KEY = "X-API-Key";
+
+    private final boolean habilitado;
+    private final double capacidad;
+    private final double fichasPorNano;
+    private final Set<String> apiKeys;
+    private final Cache<String, Cubeta> cubetas;
+    private final Counter rechazos;
+    // System.nanoTime en producción; las pruebas lo avanzan a mano
+    private final LongSupplier reloj;
+
+    @Autowired
+    public LimiteTasaInterceptor(MeterRegistry meterRegistry,
+                                 @Value("${productos.admision.tasa.habilitado:true}") boolean habilitado,
+                                 @Value("${productos.admision.tasa.capacidad:200}") int capacidad,
+                                 @Value("${productos.admision.tasa.recarga-por-segundo:100}") int recargaPorSegundo,
+                                 @Value("${productos.admision.tasa.maximo-clientes:100000}") long maximoClientes,
+                                 @Value("${productos.admision.tasa.api-keys:}") List<String> apiKeys) {
+        this(meterRegistry, habilitado, capacidad, recargaPorSegundo, maximoClientes, apiKeys, System::nanoTime);
+    }
+
+    LimiteTasaInterceptor(MeterRegistry meterRegistry, boolean habilitado, int capacidad, int recargaPorSegundo,
+                          long maximoClientes, List<String> apiKeys, LongSupplier reloj) {
+        this.habilitado = habilitado;
+        this.capacidad = capacidad;
+        this.fichasPorNano = recargaPorSegundo / (double) TimeUnit.SECONDS.toNanos(1);
+        this.apiKeys = apiKeys.stream()
+                .map(String::trim)
+                .filter(clave -> !clave.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.cubetas = Caffeine.newBuilder()
+                .maximumSize(maximoClientes)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.rechazos = Counter.builder("productos.admision.rechazos")
+                .description("Peticiones rechazadas antes de llegar al controlador")
+                .tag("motivo", "tasa")
+                .register(meterRegistry);
+        this.reloj = reloj;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // El despacho asíncrono (fin de un streaming o long-poll) ya se cobró al entrar
+        if (!habilitado || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        // Un costo mayor que la cubeta no se podría pagar nunca
+        double costo = Math.min(costo(handler), capacidad);
+        long ahora = reloj.getAsLong();
+        Cubeta cubeta = cubetas.get(cliente(request), clave -> new Cubeta(capacidad, ahora));
+        double faltantes = cubeta.consumir(costo, ahora, capacidad, fichasPorNano);
+        if (faltantes > 0) {
+            rechazos.increment();
+            long segundos = (long) Math.ceil(faltantes / fichasPorNano / TimeUnit.SECONDS.toNanos(1));
+            throw new LimiteExcedidoException("Se superó el límite de peticiones del cliente, reintente más tarde",
+                    Math.max(segundos, 1));
+        }
+        return true;
+    }
+
+    private static int costo(Object handler) {
+        if (handler instanceof HandlerMethod metodo) {
+            CostoPeticion costo = metodo.getMethodAnnotation(CostoPeticion.class);
+            if (costo != null) {
+                return costo.value();
+            }
+        }
+        return 1;
+    }
+
+    private String cliente(HttpServletRequest request) {
+        String apiKey = request.getHeader(HEADER_API_KEY);
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * Fichas disponibles de un cliente. Se recarga al consultarla según el tiempo transcurrido,
+     * sin tareas en segundo plano.
+     */
+    private static final class Cubeta {
+
+        private double fichas;
+        private long ultimaRecarga;
+
+        private Cubeta(double fichas, long ahora) {
+            this.fichas = fichas;
+            this.ultimaRecarga = ahora;
+        }
+
+        // Devuelve 0 si se pudo cobrar, o las fichas que faltan (no se cobra nada)
+        synchronized double consumir(double costo, long ahora, double capacidad, double fichasPorNano) {
+            if (ahora > ultimaRecarga) {
+                fichas = Math.min(capacidad, fichas + (ahora - ultimaRecarga) * fichasPorNano);
+                ultimaRecarga = ahora;
+            }
+            if (fichas >= costo) {
+                fichas -= costo;
+                return 0;
+            }
+            return costo - fichas;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.utn.productos_api.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuración de las cachés en memoria (Caffeine) que están delante de las lecturas de productos.
+ * Ambas cachés tienen tamaño máximo (en productos) y expiración, y registran estadísticas para que
+ * Actuator publique aciertos, fallos y desalojos (cache.gets, cache.evictions).
+ */
+@Configuration
+public class CacheConfig {
+
+    public static final String CACHE_PRODUCTOS = "productos";
+    public static final String CACHE_PRODUCTOS_POR_CATEGORIA = "productosPorCategoria";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${productos.cache.por-id.tamanio-maximo:10000}") long tamanioMaximoPorId,
+            @Value("${productos.cache.por-id.ttl:5m}") Duration ttlPorId,
+            @Value("${productos.cache.por-categoria.ttl:1m}") Duration ttlPorCategoria,
+            @Value("${productos.cache.por-categoria.maximo-productos:50000}") long maximoProductosPorCategoria) {
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // No guardamos "nulos": un ID inexistente no debe ocupar lugar en la caché
+        cacheManager.setAllowNullValues(false);
+
+        cacheManager.registerCustomCache(CACHE_PRODUCTOS, Caffeine.newBuilder()
+                .maximumSize(tamanioMaximoPorId)
+                .expireAfterWrite(ttlPorId)
+                .recordStats()
+                .build());
+
+        // Cada entrada es la lista completa de una categoría: se limita la cantidad total de productos
+        // guardados, no la de entradas. Una categoría con más productos que el máximo no se cachea
+        cacheManager.registerCustomCache(CACHE_PRODUCTOS_POR_CATEGORIA, Caffeine.newBuilder()
+                .maximumWeight(maximoProductosPorCategoria)
+                .<Object, Object>weigher((categoria, productos) -> ((List<?>) productos).size())
+                .expireAfterWrite(ttlPorCategoria)
+                .recordStats()
+                .build());
+
+        return cacheManager;
+    }
+}
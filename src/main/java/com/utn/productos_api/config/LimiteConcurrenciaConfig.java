@@ -0,0 +1,52 @@
+package com.utn.productos_api.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Envuelve el DataSource principal con LimiteConcurrenciaDataSource.
+ * Se activa con productos.db.limite.habilitado=true (lo hace el perfil "virtual").
+ */
+@Configuration
+@ConditionalOnProperty(name = "productos.db.limite.habilitado", havingValue = "true")
+public class LimiteConcurrenciaConfig {
+
+    // Es static para que el post-procesador se registre antes de crear el DataSource
+    @Bean
+    public static BeanPostProcessor limiteConcurrenciaPostProcessor(Environment environment) {
+        int concurrenciaMaxima = environment.getProperty("productos.db.limite.concurrencia-maxima", Integer.class, 8);
+        long esperaMaximaMs = environment.getProperty("productos.db.limite.espera-maxima-ms", Long.class, 500L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof LimiteConcurrenciaDataSource)) {
+                    return new LimiteConcurrenciaDataSource(dataSource, concurrenciaMaxima, esperaMaximaMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Permisos libres y peticiones esperando una conexión
+    @Bean
+    public MeterBinder limiteConcurrenciaMetricas(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof LimiteConcurrenciaDataSource limite) {
+                Gauge.builder("productos.db.limite.disponibles", limite, LimiteConcurrenciaDataSource::getPermisosDisponibles)
+                        .description("Conexiones que todavía se pueden abrir sin esperar")
+                        .register(registry);
+                Gauge.builder("productos.db.limite.en.espera", limite, LimiteConcurrenciaDataSource::getHilosEnEspera)
+                        .description("Peticiones esperando permiso para abrir una conexión")
+                        .register(registry);
+            }
+        };
+    }
+}
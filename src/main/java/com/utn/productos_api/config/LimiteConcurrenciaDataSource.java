@@ -0,0 +1,116 @@
+package com.utn.productos_api.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource que limita cuántas conexiones pueden tener en uso las peticiones HTTP al mismo tiempo.
+ * Con hilos virtuales la cantidad de peticiones concurrentes ya no la acota el pool de Tomcat,
+ * así que este semáforo (justo, en orden de llegada) es el que protege al pool de conexiones:
+ * quien no consigue permiso en el tiempo configurado recibe un error (503) en lugar de hacer crecer la cola.
+ * El permiso se devuelve al cerrar la conexión.
+ *
+ * El límite va por debajo del tamaño del pool: los hilos que no atienden una petición (volcado de
+ * MotorStock, reconciliación de estadísticas, revisión de réplicas) no pasan por el semáforo y
+ * siempre encuentran conexiones libres, aunque una ráfaga de peticiones ocupe todo el cupo.
+ */
+public class LimiteConcurrenciaDataSource extends DelegatingDataSource {
+
+    private final Semaphore permisos;
+    private final long esperaMaximaMs;
+
+    public LimiteConcurrenciaDataSource(DataSource destino, int concurrenciaMaxima, long esperaMaximaMs) {
+        super(destino);
+        this.permisos = new Semaphore(concurrenciaMaxima, true);
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!enPeticion()) {
+            return super.getConnection();
+        }
+        adquirir();
+        return conLiberacion(() -> super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!enPeticion()) {
+            return super.getConnection(username, password);
+        }
+        adquirir();
+        return conLiberacion(() -> super.getConnection(username, password));
+    }
+
+    public int getPermisosDisponibles() {
+        return permisos.availablePermits();
+    }
+
+    public int getHilosEnEspera() {
+        return permisos.getQueueLength();
+    }
+
+    // Hay atributos de petición en el hilo mientras DispatcherServlet atiende una petición HTTP
+    private static boolean enPeticion() {
+        return RequestContextHolder.getRequestAttributes() != null;
+    }
+
+    private void adquirir() throws SQLException {
+        try {
+            if (!permisos.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "Se alcanzó el límite de conexiones concurrentes a la base de datos (espera de " + esperaMaximaMs + " ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido mientras esperaba una conexión", e);
+        }
+    }
+
+    private Connection conLiberacion(ObtenerConexion obtener) throws SQLException {
+        Connection conexion;
+        try {
+            conexion = obtener.obtener();
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+        AtomicBoolean liberada = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(LimiteConcurrenciaDataSource.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    if ("close".equals(metodo.getName()) && liberada.compareAndSet(false, true)) {
+                        try {
+                            return invocar(conexion, metodo, args);
+                        } finally {
+                            permisos.release();
+                        }
+                    }
+                    return invocar(conexion, metodo, args);
+                });
+    }
+
+    private static Object invocar(Connection conexion, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(conexion, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ObtenerConexion {
+        Connection obtener() throws SQLException;
+    }
+}
@@ -0,0 +1,35 @@
+package com.utn.productos_api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utn.productos_api.metrics.MedicionJacksonHttpMessageConverter;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Instrumentación con Micrometer. Las métricas se publican en /actuator/prometheus.
+ * <ul>
+ *     <li>productos.controlador / productos.servicio: latencia de cada método (@Timed)</li>
+ *     <li>spring.data.repository.invocations: tiempo en la base de datos (automática)</li>
+ *     <li>productos.serializacion: escritura de las respuestas en JSON</li>
+ *     <li>productos.consultas.por.peticion, hibernate.* y hikaricp.*: consultas y pool de conexiones</li>
+ * </ul>
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Procesa las anotaciones @Timed de controladores y servicios
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    // Reemplaza al conversor JSON por defecto de Spring Boot
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(
+            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return new MedicionJacksonHttpMessageConverter(objectMapper, meterRegistry);
+    }
+}
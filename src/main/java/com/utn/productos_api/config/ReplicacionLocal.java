@@ -0,0 +1,85 @@
+package com.utn.productos_api.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replicación simulada para probar el perfil "replicas" en local con H2, que no replica.
+ * Cada réplica es otra base H2 en memoria con su propia tabla producto; cada intervalo-copia-ms
+ * se copia en ella la tabla de la primaria (a través de una tabla vinculada) y se anota el instante
+ * en que empezó la copia. La consulta de retraso de RuteoDataSource lee ese instante, así que el
+ * retraso medido es real: crece con el intervalo de copia y si la copia se detiene la réplica
+ * deja de recibir lecturas.
+ * Se activa con productos.replicas.local.habilitado=true; en producción las réplicas las mantiene la base.
+ */
+@Component
+@ConditionalOnProperty(name = "productos.replicas.local.habilitado", havingValue = "true")
+public class ReplicacionLocal {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicacionLocal.class);
+
+    private final DataSourceProperties propiedades;
+    private final List<JdbcTemplate> replicas = new ArrayList<>();
+    private volatile boolean preparada;
+
+    @Autowired
+    public ReplicacionLocal(DataSourceProperties propiedades, @Value("${productos.replicas.urls}") List<String> urls) {
+        this.propiedades = propiedades;
+        for (String url : urls) {
+            replicas.add(new JdbcTemplate(new DriverManagerDataSource(url.trim(),
+                    propiedades.determineUsername(), propiedades.determinePassword())));
+        }
+    }
+
+    // Después de las migraciones de Flyway: la tabla vinculada toma las columnas de la primaria
+    @EventListener(ApplicationReadyEvent.class)
+    public void preparar() {
+        for (JdbcTemplate replica : replicas) {
+            replica.execute("CREATE LINKED TABLE IF NOT EXISTS producto_primaria('" + propiedades.determineDriverClassName()
+                    + "', '" + propiedades.determineUrl() + "', '" + propiedades.determineUsername() + "', '"
+                    + propiedades.determinePassword() + "', 'PRODUCTO') READONLY");
+            replica.execute("CREATE TABLE IF NOT EXISTS producto AS SELECT * FROM producto_primaria WITH NO DATA");
+            replica.execute("CREATE TABLE IF NOT EXISTS replicacion(copiado_ms BIGINT NOT NULL)");
+        }
+        preparada = true;
+        copiar();
+    }
+
+    /**
+     * Copia la tabla de la primaria en cada réplica. Una réplica que falla conserva su instante
+     * de copia anterior: su retraso sigue creciendo hasta que RuteoDataSource la deshabilita.
+     */
+    @Scheduled(fixedDelayString = "${productos.replicas.local.intervalo-copia-ms:200}")
+    public synchronized void copiar() {
+        if (!preparada) {
+            return;
+        }
+        for (JdbcTemplate replica : replicas) {
+            // Lo que se copia es el estado de la primaria desde este instante (o uno posterior)
+            long inicio = System.currentTimeMillis();
+            try {
+                replica.execute("MERGE INTO producto KEY(id) SELECT * FROM producto_primaria");
+                replica.execute("DELETE FROM producto WHERE id NOT IN (SELECT id FROM producto_primaria)");
+                if (replica.update("UPDATE replicacion SET copiado_ms = ?", inicio) == 0) {
+                    replica.update("INSERT INTO replicacion(copiado_ms) VALUES (?)", inicio);
+                }
+            } catch (DataAccessException e) {
+                log.warn("No se pudo copiar la primaria en una réplica local: {}", e.getMessage());
+            }
+        }
+    }
+}
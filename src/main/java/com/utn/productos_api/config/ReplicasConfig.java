@@ -0,0 +1,83 @@
+package com.utn.productos_api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Separa lecturas y escrituras: la primaria es la de spring.datasource.* (pool en
+ * spring.datasource.hikari.*) y cada URL de productos.replicas.urls es una réplica con su propio
+ * pool (productos.replicas.hikari.*). Cada pool publica sus métricas hikaricp.* con su nombre.
+ * Se activa con productos.replicas.habilitado=true (lo hace el perfil "replicas").
+ */
+@Configuration
+@ConditionalOnProperty(name = "productos.replicas.habilitado", havingValue = "true")
+public class ReplicasConfig {
+
+    @Bean
+    public RuteoDataSource ruteoDataSource(DataSourceProperties propiedades, Environment environment,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${productos.replicas.urls}") List<String> urls,
+                                           @Value("${productos.replicas.retraso-maximo}") Duration retrasoMaximo,
+                                           @Value("${productos.replicas.consulta-retraso:select 0}") String consultaRetraso) {
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primaria = pool(propiedades, propiedades.determineUrl(), RuteoDataSource.PRIMARIA, meterRegistry);
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primaria));
+
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = pool(propiedades, urls.get(i).trim(), "replica-" + (i + 1), meterRegistry);
+            binder.bind("productos.replicas.hikari", Bindable.ofInstance(replica));
+            // El nombre identifica a cada réplica en el ruteo y en las métricas: no se toma de la configuración común
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new RuteoDataSource(primaria, replicas, retrasoMaximo, consultaRetraso, meterRegistry);
+    }
+
+    /**
+     * DataSource que usa toda la aplicación (JPA, JdbcTemplate, Flyway). Las sentencias fuera de
+     * una transacción de solo lectura, incluidas las migraciones, van a la primaria.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(RuteoDataSource ruteoDataSource) {
+        return new LazyConnectionDataSourceProxy(ruteoDataSource);
+    }
+
+    @Bean
+    public SchedulingConfigurer revisionReplicas(RuteoDataSource ruteoDataSource,
+                                                 @Value("${productos.replicas.intervalo-revision-ms:1000}") long intervaloMs) {
+        return registrar -> registrar.addFixedDelayTask(ruteoDataSource::revisarReplicas, Duration.ofMillis(intervaloMs));
+    }
+
+    private static HikariDataSource pool(DataSourceProperties propiedades, String url, String nombre,
+                                         MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(propiedades.determineUsername());
+        dataSource.setPassword(propiedades.determinePassword());
+        dataSource.setDriverClassName(propiedades.determineDriverClassName());
+        dataSource.setPoolName(nombre);
+        dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return dataSource;
+    }
+}
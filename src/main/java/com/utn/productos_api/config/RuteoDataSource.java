@@ -0,0 +1,174 @@
+package com.utn.productos_api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * DataSource que manda las transacciones de solo lectura (@Transactional(readOnly = true),
+ * incluidas las de los repositorios) a una réplica y todo lo demás a la primaria.
+ *
+ * Solo se usan las réplicas cuyo retraso medido no supera el máximo configurado; si ninguna está
+ * al día (o no responde) la lectura va a la primaria. El retraso se mide periódicamente con
+ * {@link #revisarReplicas()} ejecutando una consulta configurable en cada réplica.
+ *
+ * Una lectura que tiene que ver una escritura reciente (leer lo propio escrito) se hace dentro de
+ * {@link #enPrimaria(Supplier)}: va a la primaria aunque la transacción sea de solo lectura.
+ *
+ * Tiene que usarse detrás de un LazyConnectionDataSourceProxy: al abrir la transacción todavía no
+ * se sabe si es de solo lectura, el proxy pide la conexión real recién en la primera sentencia.
+ */
+public class RuteoDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RuteoDataSource.class);
+
+    static final String PRIMARIA = "primaria";
+
+    // Lecturas del hilo que tienen que ir a la primaria (ver enPrimaria)
+    private static final ThreadLocal<Boolean> FORZAR_PRIMARIA = new ThreadLocal<>();
+
+    private final HikariDataSource primaria;
+    private final List<Replica> replicas;
+    private final long retrasoMaximoMs;
+    private final String consultaRetraso;
+    private final AtomicInteger siguiente = new AtomicInteger();
+    private final Counter conexionesPrimaria;
+    // Réplicas al día según la última revisión (se reemplaza entera, nunca se modifica)
+    private volatile List<Replica> disponibles = List.of();
+
+    public RuteoDataSource(HikariDataSource primaria, List<HikariDataSource> replicas, Duration retrasoMaximo,
+                           String consultaRetraso, MeterRegistry meterRegistry) {
+        this.primaria = primaria;
+        this.retrasoMaximoMs = retrasoMaximo.toMillis();
+        this.consultaRetraso = consultaRetraso;
+
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIA, primaria);
+        List<Replica> lista = new ArrayList<>(replicas.size());
+        for (HikariDataSource dataSource : replicas) {
+            Replica replica = new Replica(dataSource, Counter.builder("productos.db.ruteo")
+                    .description("Conexiones pedidas a cada base, por destino")
+                    .tag("destino", dataSource.getPoolName())
+                    .register(meterRegistry));
+            Gauge.builder("productos.db.replica.retraso", replica, r -> r.retrasoMs)
+                    .description("Retraso de la réplica en milisegundos según la última revisión (-1 si no respondió)")
+                    .tag("replica", dataSource.getPoolName())
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            destinos.put(dataSource.getPoolName(), dataSource);
+            lista.add(replica);
+        }
+        this.replicas = List.copyOf(lista);
+        this.conexionesPrimaria = Counter.builder("productos.db.ruteo")
+                .description("Conexiones pedidas a cada base, por destino")
+                .tag("destino", PRIMARIA)
+                .register(meterRegistry);
+
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primaria);
+        // Si no hay una réplica elegida se usa la primaria (nunca se falla por la clave)
+        setLenientFallback(true);
+    }
+
+    /**
+     * Ejecuta la lectura con sus conexiones en la primaria. Sin réplicas no cambia nada.
+     */
+    public static <T> T enPrimaria(Supplier<T> lectura) {
+        if (Boolean.TRUE.equals(FORZAR_PRIMARIA.get())) {
+            return lectura.get();
+        }
+        FORZAR_PRIMARIA.set(Boolean.TRUE);
+        try {
+            return lectura.get();
+        } finally {
+            FORZAR_PRIMARIA.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || Boolean.TRUE.equals(FORZAR_PRIMARIA.get())) {
+            conexionesPrimaria.increment();
+            return PRIMARIA;
+        }
+        List<Replica> candidatas = disponibles;
+        if (candidatas.isEmpty()) {
+            conexionesPrimaria.increment();
+            return PRIMARIA;
+        }
+        // Reparto en ronda entre las réplicas al día
+        Replica replica = candidatas.get(Math.floorMod(siguiente.getAndIncrement(), candidatas.size()));
+        replica.conexiones.increment();
+        return replica.dataSource.getPoolName();
+    }
+
+    /**
+     * Mide el retraso de cada réplica y actualiza las que pueden recibir lecturas.
+     * Una réplica que falla la consulta queda afuera hasta la próxima revisión.
+     */
+    public void revisarReplicas() {
+        List<Replica> alDia = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            long retraso = medirRetraso(replica);
+            boolean estabaDisponible = disponibles.contains(replica);
+            replica.retrasoMs = retraso;
+            boolean disponible = retraso >= 0 && retraso <= retrasoMaximoMs;
+            if (disponible) {
+                alDia.add(replica);
+            }
+            if (disponible != estabaDisponible) {
+                log.info("Réplica {} {} (retraso {} ms, máximo {} ms)", replica.dataSource.getPoolName(),
+                        disponible ? "habilitada" : "deshabilitada", retraso, retrasoMaximoMs);
+            }
+        }
+        disponibles = List.copyOf(alDia);
+    }
+
+    private long medirRetraso(Replica replica) {
+        try (Connection conexion = replica.dataSource.getConnection();
+             Statement sentencia = conexion.createStatement();
+             ResultSet resultado = sentencia.executeQuery(consultaRetraso)) {
+            return resultado.next() ? Math.max(resultado.getLong(1), 0) : -1;
+        } catch (SQLException e) {
+            log.warn("No se pudo medir el retraso de la réplica {}: {}", replica.dataSource.getPoolName(), e.getMessage());
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+        primaria.close();
+    }
+
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private final Counter conexiones;
+        private volatile long retrasoMs = -1;
+
+        private Replica(HikariDataSource dataSource, Counter conexiones) {
+            this.dataSource = dataSource;
+            this.conexiones = conexiones;
+        }
+    }
+}
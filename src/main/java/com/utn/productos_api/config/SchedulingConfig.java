@@ -0,0 +1,14 @@
+package com.utn.productos_api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas programadas (@Scheduled), como el volcado periódico del stock a la base.
+ * Corren en un pool de spring.task.scheduling.pool.size hilos (por defecto Spring usa uno solo):
+ * una reconciliación de estadísticas lenta no demora el volcado, el diario ni los latidos SSE.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,72 @@
+package com.utn.productos_api.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.utn.productos_api.admision.LimiteCargaInterceptor;
+import com.utn.productos_api.admision.LimiteTasaInterceptor;
+import com.utn.productos_api.metrics.ConsultasPorPeticionInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+    private final LimiteTasaInterceptor limiteTasaInterceptor;
+    private final LimiteCargaInterceptor limiteCargaInterceptor;
+
+    public WebConfig(MeterRegistry meterRegistry, LimiteTasaInterceptor limiteTasaInterceptor,
+                     LimiteCargaInterceptor limiteCargaInterceptor) {
+        this.meterRegistry = meterRegistry;
+        this.limiteTasaInterceptor = limiteTasaInterceptor;
+        this.limiteCargaInterceptor = limiteCargaInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ConsultasPorPeticionInterceptor(meterRegistry))
+                .addPathPatterns("/api/**");
+        // Primero la cuota de cada cliente: el que la excede no llega a ocupar un lugar del límite de carga
+        registry.addInterceptor(limiteTasaInterceptor)
+                .addPathPatterns("/api/**");
+        registry.addInterceptor(limiteCargaInterceptor)
+                .addPathPatterns("/api/**");
+    }
+
+    /**
+     * Formatos binarios para los listados, elegidos con la cabecera Accept:
+     * application/cbor y application/x-jackson-smile. Smile además escribe cada nombre de campo
+     * una sola vez y en el resto de las filas lo referencia.
+     * Se arman con el builder de Spring Boot para que usen la misma configuración que el JSON.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * ETags para los listados: se calculan sobre el cuerpo de la respuesta y, si coinciden con
+     * If-None-Match, se responde 304 sin enviar el cuerpo. GET /{id} tiene su propio ETag por versión.
+     * La descarga NDJSON desactiva este filtro para no acumular el cuerpo en memoria.
+     */
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> etagListadosFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registro = new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registro.addUrlPatterns("/api/productos", "/api/productos/categoria/*", "/api/productos/consulta");
+        registro.setName("etagListadosFilter");
+        return registro;
+    }
+}
@@ -0,0 +1,61 @@
+package com.utn.productos_api.controller;
+
+import com.utn.productos_api.dto.VersionProductoDTO;
+import com.utn.productos_api.exception.PrecondicionFallidaException;
+
+/**
+ * Arma y compara los ETags de un producto. El formato es "version-stock".
+ */
+final class EtagProducto {
+
+    private static final String COMODIN = "*";
+    private static final String PREFIJO_DEBIL = "W/";
+
+    private EtagProducto() {
+    }
+
+    static String generar(VersionProductoDTO version) {
+        return "\"" + version.getVersion() + "-" + version.getStock() + "\"";
+    }
+
+    /**
+     * Comparación débil para If-None-Match: acepta una lista de ETags separados por coma.
+     */
+    static boolean coincide(String ifNoneMatch, String etag) {
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals(COMODIN)) {
+                return true;
+            }
+            if (valor.startsWith(PREFIJO_DEBIL)) {
+                valor = valor.substring(PREFIJO_DEBIL.length());
+            }
+            if (valor.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Interpreta el ETag de un If-Match. Retorna null si no hay precondición (cabecera ausente o "*").
+     * Un ETag débil o con otro formato nunca coincide (comparación fuerte), por eso responde 412.
+     */
+    static VersionProductoDTO parsear(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals(COMODIN)) {
+            return null;
+        }
+        String valor = ifMatch.trim();
+        int separador = valor.indexOf('-');
+        if (valor.length() < 5 || valor.charAt(0) != '"' || valor.charAt(valor.length() - 1) != '"' || separador < 0) {
+            throw new PrecondicionFallidaException("El ETag enviado en If-Match no coincide con la versión actual");
+        }
+        try {
+            Long version = Long.valueOf(valor.substring(1, separador));
+            Integer stock = Integer.valueOf(valor.substring(separador + 1, valor.length() - 1));
+            return new VersionProductoDTO(version, stock);
+        } catch (NumberFormatException e) {
+            throw new PrecondicionFallidaException("El ETag enviado en If-Match no coincide con la versión actual");
+        }
+    }
+}
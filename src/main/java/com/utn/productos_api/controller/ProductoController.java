@@ -1,72 +1,238 @@
 package com.utn.productos_api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.utn.productos_api.admision.CostoPeticion;
+import com.utn.productos_api.dto.ActualizacionStockLoteDTO;
 import com.utn.productos_api.dto.ActualizarStockDTO;
+import com.utn.productos_api.dto.EstadisticasDTO;
+import com.utn.productos_api.dto.PaginaCambiosDTO;
+import com.utn.productos_api.dto.FiltroProductosDTO;
+import com.utn.productos_api.dto.MovimientoStockDTO;
 import com.utn.productos_api.dto.ProductoDTO;
 import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.dto.ProgresoImportacionDTO;
+import com.utn.productos_api.dto.ResultadoLoteDTO;
+import com.utn.productos_api.dto.VersionProductoDTO;
+import com.utn.productos_api.exception.SolicitudInvalidaException;
 import com.utn.productos_api.model.Categoria;
 import com.utn.productos_api.model.Producto;
+import com.utn.productos_api.service.BusquedaProductoService;
+import com.utn.productos_api.service.ColaStockAsincrona;
+import com.utn.productos_api.service.EstadisticasService;
+import com.utn.productos_api.service.ExportacionProductosService;
+import com.utn.productos_api.service.PaginaCursor;
+import com.utn.productos_api.service.ProductoLoteService;
 import com.utn.productos_api.service.ProductoService;
+import com.utn.productos_api.service.RegistroCambiosService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid; // Importante para @Valid
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController // Combina @Controller y @ResponseBody
 @RequestMapping("/api/productos") // Define la ruta base para todos los endpoints en esta clase.
 @Tag(name = "Gestión de Productos", description = "Endpoints para crear, leer, actualizar y eliminar productos") //
+@Timed("productos.controlador") // Latencia de cada endpoint, con tags class y method
 public class ProductoController {
 
+    // Cabecera con el cursor de la página siguiente (además del Link rel="next")
+    public static final String HEADER_SIGUIENTE_CURSOR = "X-Next-Cursor";
+    // Cantidad de productos que se van a exportar, para mostrar el avance de la descarga
+    public static final String HEADER_TOTAL = "X-Total-Count";
+    public static final String TEXT_CSV_VALUE = "text/csv";
+    // Modo asíncrono de PATCH /{id}/stock (RFC 7240) y número de secuencia del cambio aceptado
+    public static final String HEADER_PREFER = "Prefer";
+    public static final String HEADER_PREFERENCIA_APLICADA = "Preference-Applied";
+    public static final String HEADER_SECUENCIA_STOCK = "X-Stock-Sequence";
+
     private final ProductoService productoService;
+    private final ProductoLoteService productoLoteService;
+    private final BusquedaProductoService busquedaProductoService;
+    private final EstadisticasService estadisticasService;
+    private final ExportacionProductosService exportacionProductosService;
+    private final RegistroCambiosService registroCambiosService;
+    private final ColaStockAsincrona colaStockAsincrona;
+    private final ObjectMapper objectMapper;
 
     // Inyección de dependencias por constructor
     @Autowired
-    public ProductoController(ProductoService productoService) {
+    public ProductoController(ProductoService productoService, ProductoLoteService productoLoteService,
+                              BusquedaProductoService busquedaProductoService, EstadisticasService estadisticasService,
+                              ExportacionProductosService exportacionProductosService,
+                              RegistroCambiosService registroCambiosService, ColaStockAsincrona colaStockAsincrona,
+                              ObjectMapper objectMapper) {
         this.productoService = productoService;
+        this.productoLoteService = productoLoteService;
+        this.busquedaProductoService = busquedaProductoService;
+        this.estadisticasService = estadisticasService;
+        this.exportacionProductosService = exportacionProductosService;
+        this.registroCambiosService = registroCambiosService;
+        this.colaStockAsincrona = colaStockAsincrona;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Endpoint para listar todos los productos.
-     * GET /api/productos
-     * Retorna List<ProductoResponseDTO>
+     * Endpoint para listar los productos paginados por cursor.
+     * GET /api/productos?cursor={ultimoId}&limite={n}
+     * Retorna List<ProductoResponseDTO> y, si hay más datos, el cursor siguiente
+     * en las cabeceras Link (rel="next") y X-Next-Cursor.
      */
-    @Operation(summary = "Listar todos los productos", description = "Retorna una lista de todos los productos en la base de datos.") //
-    @ApiResponse(responseCode = "200", description = "Lista de productos obtenida exitosamente") //
+    @Operation(summary = "Listar productos paginados", description = "Retorna una página de productos ordenados por ID. Para obtener la siguiente se envía el cursor recibido en la cabecera X-Next-Cursor.") //
+    @ApiResponse(responseCode = "200", description = "Página de productos obtenida exitosamente") //
+    @CostoPeticion(5)
     @GetMapping
-    public ResponseEntity<List<ProductoResponseDTO>> listarTodos() {
-        List<Producto> productos = productoService.obtenerTodos();
-        // Convertimos la lista de Entidades a una lista de DTOs de respuesta
-        List<ProductoResponseDTO> dtos = productos.stream()
-                .map(productoService::convertirAProductoResponseDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+    public ResponseEntity<List<ProductoResponseDTO>> listarTodos(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int limite) {
+
+        // La página ya viene proyectada a DTOs de respuesta desde la consulta
+        PaginaCursor<ProductoResponseDTO> pagina = productoService.obtenerPagina(cursor, limite);
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.getSiguienteCursor() != null) {
+            String siguiente = ServletUriComponentsBuilder
+                    .fromCurrentRequest()
+                    .replaceQueryParam("cursor", pagina.getSiguienteCursor())
+                    .toUriString();
+            respuesta.header(HttpHeaders.LINK, "<" + siguiente + ">; rel=\"next\"")
+                    .header(HEADER_SIGUIENTE_CURSOR, String.valueOf(pagina.getSiguienteCursor()));
+        }
+        return respuesta.body(pagina.getElementos());
+    }
+
+    /**
+     * Endpoint para descargar todos los productos como NDJSON (un JSON por línea).
+     * GET /api/productos con Accept: application/x-ndjson
+     * Las filas se escriben a medida que se leen de la base, sin armar la lista en memoria.
+     */
+    @Operation(summary = "Listar todos los productos en streaming", description = "Con Accept: application/x-ndjson retorna todos los productos, uno por línea, leídos con un cursor de la base de datos.")
+    @ApiResponse(responseCode = "200", description = "Productos enviados exitosamente")
+    @CostoPeticion(100)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listarTodosStream(HttpServletRequest request) {
+        // El ETag de listados necesitaría todo el cuerpo en memoria: no aplica al streaming
+        ShallowEtagHeaderFilter.disableContentCaching(request);
+        StreamingResponseBody cuerpo = exportacionProductosService::exportarNdjson;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cuerpo);
+    }
+
+    /**
+     * Endpoint para exportar el catálogo completo como archivo.
+     * GET /api/productos/export?formato=csv|ndjson
+     * Se escribe desde un cursor de la base; X-Total-Count indica cuántos productos se van a enviar.
+     */
+    @Operation(summary = "Exportar el catálogo", description = "Descarga todos los productos en CSV (con encabezado) o NDJSON, escritos en streaming desde la base de datos. El archivo CSV se puede volver a importar con POST /api/productos/import.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Archivo generado exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Formato no soportado")
+    })
+    @CostoPeticion(100)
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(defaultValue = "csv") String formato) {
+
+        boolean csv = "csv".equalsIgnoreCase(formato);
+        if (!csv && !"ndjson".equalsIgnoreCase(formato)) {
+            throw new SolicitudInvalidaException("Formato no soportado: " + formato + " (use csv o ndjson)");
+        }
+        StreamingResponseBody cuerpo = csv
+                ? exportacionProductosService::exportarCsv
+                : exportacionProductosService::exportarNdjson;
+        return ResponseEntity.ok()
+                .contentType(csv ? MediaType.parseMediaType(TEXT_CSV_VALUE) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "productos.csv" : "productos.ndjson").build().toString())
+                .header(HEADER_TOTAL, String.valueOf(exportacionProductosService.contarProductos()))
+                .body(cuerpo);
+    }
+
+    /**
+     * Endpoint para importar un catálogo desde un archivo CSV o NDJSON.
+     * POST /api/productos/import (Content-Type: text/csv o application/x-ndjson)
+     * Responde en NDJSON mientras procesa: un ProgresoImportacionDTO por línea con error,
+     * uno por bloque guardado y un resumen al final.
+     */
+    @Operation(summary = "Importar productos desde CSV o NDJSON", description = "Lee el archivo en streaming, valida cada línea y guarda los productos válidos en bloques. La respuesta informa el avance y los errores por línea a medida que se procesa.")
+    @ApiResponse(responseCode = "200", description = "Importación procesada (revisar los errores informados y el resumen final)")
+    @CostoPeticion(50)
+    @PostMapping(value = "/import", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importar(HttpServletRequest request) {
+        ProductoLoteService.FormatoImportacion formato = MediaType.APPLICATION_NDJSON
+                .isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                ? ProductoLoteService.FormatoImportacion.NDJSON
+                : ProductoLoteService.FormatoImportacion.CSV;
+        ObjectWriter writer = objectMapper.writerFor(ProgresoImportacionDTO.class);
+
+        StreamingResponseBody cuerpo = salida -> productoLoteService.importar(request.getInputStream(), formato, progreso -> {
+            try {
+                salida.write(writer.writeValueAsBytes(progreso));
+                salida.write('\n');
+                // El avance se envía en el momento; los errores viajan con el siguiente avance
+                if (progreso.getTipo() != ProgresoImportacionDTO.Tipo.ERROR) {
+                    salida.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(cuerpo);
     }
 
     /**
      * Endpoint para obtener un producto por su ID.
      * GET /api/productos/{id}
-     * Retorna ProductoResponseDTO
+     * Retorna ProductoResponseDTO con su ETag. Si If-None-Match coincide responde 304
+     * sin cargar ni serializar el producto.
      */
-    @Operation(summary = "Obtener producto por ID", description = "Retorna un producto específico buscando por su ID.")
+    @Operation(summary = "Obtener producto por ID", description = "Retorna un producto específico buscando por su ID. Soporta GET condicional con If-None-Match.")
     @ApiResponses(value = { //
             @ApiResponse(responseCode = "200", description = "Producto encontrado"),
+            @ApiResponse(responseCode = "304", description = "El producto no cambió desde el ETag enviado"),
             @ApiResponse(responseCode = "404", description = "Producto no encontrado") //
     })
     @GetMapping("/{id}")
-    public ResponseEntity<ProductoResponseDTO> obtenerPorId(@PathVariable Long id) {
+    public ResponseEntity<ProductoResponseDTO> obtenerPorId(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        if (ifNoneMatch != null) {
+            String etag = EtagProducto.generar(productoService.obtenerVersion(id));
+            if (EtagProducto.coincide(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
         // El servicio lanza la excepción si no lo encuentra.
         // El @ControllerAdvice se encargará de la respuesta 404.
         Producto producto = productoService.obtenerPorId(id);
-        return ResponseEntity.ok(productoService.convertirAProductoResponseDTO(producto));
+        return conEtag(producto);
     }
 
     /**
@@ -76,13 +242,95 @@ public class ProductoController {
      */
     @Operation(summary = "Filtrar productos por categoría")
     @ApiResponse(responseCode = "200", description = "Lista de productos filtrada exitosamente")
+    @CostoPeticion(5)
     @GetMapping("/categoria/{categoria}")
     public ResponseEntity<List<ProductoResponseDTO>> filtrarPorCategoria(@PathVariable Categoria categoria) {
-        List<Producto> productos = productoService.obtenerPorCategoria(categoria);
-        List<ProductoResponseDTO> dtos = productos.stream()
-                .map(productoService::convertirAProductoResponseDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(dtos);
+        // El servicio ya devuelve los DTOs proyectados desde la consulta
+        return ResponseEntity.ok(productoService.obtenerPorCategoria(categoria));
+    }
+
+    /**
+     * Endpoint para consultar productos con filtros combinables.
+     * GET /api/productos/consulta?categoria=&precioMin=&precioMax=&stockMin=&stockMax=&nombre=&ordenarPor=&direccion=&limite=
+     * Retorna List<ProductoResponseDTO>
+     */
+    @Operation(summary = "Consultar productos con filtros", description = "Filtra por categoría, rango de precio, rango de stock y prefijo del nombre; ordena y limita en la base de datos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lista de productos filtrada exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Parámetros de consulta inválidos")
+    })
+    @CostoPeticion(5)
+    @GetMapping("/consulta")
+    public ResponseEntity<List<ProductoResponseDTO>> consultar(@Valid @ParameterObject FiltroProductosDTO filtro) {
+        return ResponseEntity.ok(productoService.consultar(filtro));
+    }
+
+    /**
+     * Endpoint de búsqueda de texto sobre nombre y descripción.
+     * GET /api/productos/search?q={texto}&limite={n}
+     * Retorna List<ProductoResponseDTO> ordenada por relevancia
+     */
+    @Operation(summary = "Buscar productos por texto", description = "Busca en el nombre y la descripción sin distinguir acentos ni mayúsculas. La última palabra puede estar incompleta (autocompletado). Los resultados se ordenan por relevancia.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resultados de la búsqueda"),
+            @ApiResponse(responseCode = "400", description = "Falta el texto a buscar"),
+            @ApiResponse(responseCode = "503", description = "El índice de búsqueda todavía se está construyendo (reintentar según Retry-After)")
+    })
+    @CostoPeticion(2)
+    @GetMapping("/search")
+    public ResponseEntity<List<ProductoResponseDTO>> buscar(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(busquedaProductoService.buscar(q, limite));
+    }
+
+    /**
+     * Endpoint con el resumen del inventario.
+     * GET /api/productos/stats
+     * Retorna EstadisticasDTO (totales generales y por categoría) calculado en memoria
+     */
+    @Operation(summary = "Resumen del inventario", description = "Cantidad de productos, stock total y valor del inventario (precio x stock), en total y por categoría. Los totales se mantienen en memoria y se reconcilian periódicamente con la base de datos.")
+    @ApiResponse(responseCode = "200", description = "Resumen obtenido exitosamente")
+    @GetMapping("/stats")
+    public ResponseEntity<EstadisticasDTO> obtenerEstadisticas() {
+        return ResponseEntity.ok(estadisticasService.obtenerEstadisticas());
+    }
+
+    /**
+     * Endpoint de long-poll sobre el registro de cambios.
+     * GET /api/productos/changes?since={secuencia}&limite={n}&espera={segundos}
+     * Responde en cuanto hay cambios posteriores a since, o una página vacía al vencer la espera.
+     * Retorna 410 si since ya no está en el registro.
+     */
+    @Operation(summary = "Leer cambios de productos (long-poll)", description = "Devuelve los cambios (alta, modificación, stock, baja) posteriores a la secuencia since. Si no hay, espera hasta que llegue alguno. Se continúa enviando el valor 'siguiente' de la respuesta.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cambios posteriores a since (puede estar vacío si venció la espera)"),
+            @ApiResponse(responseCode = "410", description = "La secuencia ya no está disponible: hay que volver a sincronizar")
+    })
+    @GetMapping("/changes")
+    public DeferredResult<PaginaCambiosDTO> leerCambios(
+            @RequestParam(required = false) Long since,
+            @RequestParam(defaultValue = "100") int limite,
+            @RequestParam(defaultValue = "30") int espera) {
+
+        int tamanio = Math.min(Math.max(limite, 1), ProductoService.LIMITE_MAXIMO_PAGINA);
+        Duration tiempo = Duration.ofSeconds(Math.min(Math.max(espera, 0), 60));
+        return registroCambiosService.esperar(since, tamanio, tiempo);
+    }
+
+    /**
+     * Endpoint de suscripción al registro de cambios por Server-Sent Events.
+     * GET /api/productos/changes con Accept: text/event-stream
+     * Cada cambio es un evento con id = secuencia; al reconectarse se continúa desde Last-Event-ID.
+     */
+    @Operation(summary = "Suscribirse a los cambios de productos (SSE)", description = "Envía cada cambio como un evento Server-Sent Events. El nombre del evento es el tipo de cambio y el id su secuencia. Un evento 'expirado' indica que hay que volver a sincronizar.")
+    @ApiResponse(responseCode = "200", description = "Suscripción abierta")
+    @CostoPeticion(5)
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter suscribirCambios(
+            @RequestParam(required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long ultimoEvento) {
+        return registroCambiosService.suscribir(ultimoEvento != null ? ultimoEvento : since, Duration.ofMinutes(30));
     }
 
     /**
@@ -116,47 +364,143 @@ public class ProductoController {
         return ResponseEntity.created(location).body(responseDTO);
     }
 
+    /**
+     * Endpoint para crear productos por lotes.
+     * POST /api/productos/batch
+     * Cada elemento se valida por separado; retorna un resultado por elemento (mismo orden).
+     */
+    @Operation(summary = "Crear productos por lotes", description = "Valida cada producto por separado y guarda los válidos en bloques con inserciones por lotes. Retorna el resultado de cada elemento.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote procesado (revisar el estado de cada elemento)"),
+            @ApiResponse(responseCode = "400", description = "El lote supera el tamaño máximo permitido")
+    })
+    @CostoPeticion(20)
+    @PostMapping("/batch")
+    public ResponseEntity<List<ResultadoLoteDTO>> crearProductos(@RequestBody List<ProductoDTO> productosDTO) {
+        return ResponseEntity.ok(productoLoteService.crearProductos(productosDTO));
+    }
+
     /**
      * Endpoint para actualizar un producto completo.
      * PUT /api/productos/{id}
      * Recibe ProductoDTO validado
      */
-    @Operation(summary = "Actualizar un producto completo por ID")
+    @Operation(summary = "Actualizar un producto completo por ID", description = "Con If-Match solo actualiza si el producto sigue en la versión del ETag enviado.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Producto actualizado exitosamente"),
             @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos"),
-            @ApiResponse(responseCode = "404", description = "Producto no encontrado")
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+            @ApiResponse(responseCode = "409", description = "Otra petición modificó el producto al mismo tiempo"),
+            @ApiResponse(responseCode = "412", description = "El ETag de If-Match no coincide con la versión actual")
     })
     @PutMapping("/{id}")
     public ResponseEntity<ProductoResponseDTO> actualizarProducto(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody ProductoDTO productoDTO) {
 
+        VersionProductoDTO versionEsperada = EtagProducto.parsear(ifMatch);
         Producto productoActualizado = productoService.convertirAProducto(productoDTO);
         // El servicio lanza 404 si no existe
-        Producto productoGuardado = productoService.actualizarProducto(id, productoActualizado);
-        return ResponseEntity.ok(productoService.convertirAProductoResponseDTO(productoGuardado));
+        Producto productoGuardado = productoService.actualizarProducto(id, productoActualizado, versionEsperada);
+        return conEtag(productoGuardado);
     }
 
     /**
      * Endpoint para actualizar solo el stock.
      * PATCH /api/productos/{id}/stock
      * Recibe ActualizarStockDTO validado
+     * El 200 sale con el cambio aplicado en MotorStock; la base se actualiza en segundo plano (write-behind).
+     * Con Prefer: respond-async (y el modo habilitado) responde 202 cuando el cambio está en el diario en disco,
+     * con el número de secuencia en X-Stock-Sequence; la base se actualiza después, en lotes.
+     * Es la respuesta durable: el 200 no espera al disco (ver ColaStockAsincrona).
      */
-    @Operation(summary = "Actualizar solo el stock de un producto por ID")
+    @Operation(summary = "Actualizar solo el stock de un producto por ID", description = "Con If-Match solo actualiza si el producto sigue en la versión del ETag enviado. La base de datos se actualiza en segundo plano, hasta productos.stock.intervalo-volcado-ms después de la respuesta. Con Prefer: respond-async responde 202 cuando el cambio está guardado en el diario en disco, sin esperar a la base de datos; el GET del producto ya devuelve el stock nuevo. El 202 sobrevive a una caída del servidor; el 200 no espera al disco.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Stock actualizado exitosamente"),
+            @ApiResponse(responseCode = "202", description = "Cambio aceptado en modo asíncrono (número de secuencia en X-Stock-Sequence)"),
             @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos (ej. stock negativo)"),
-            @ApiResponse(responseCode = "404", description = "Producto no encontrado")
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+            @ApiResponse(responseCode = "412", description = "El ETag de If-Match no coincide con la versión actual"),
+            @ApiResponse(responseCode = "503", description = "Demasiados cambios asíncronos pendientes de guardar")
     })
     @PatchMapping("/{id}/stock")
     public ResponseEntity<ProductoResponseDTO> actualizarStock(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = HEADER_PREFER, required = false) String prefer,
             @Valid @RequestBody ActualizarStockDTO stockDTO) {
 
+        VersionProductoDTO versionEsperada = EtagProducto.parsear(ifMatch);
+        // Con If-Match el cambio es condicional: se resuelve siempre en forma sincrónica
+        if (versionEsperada == null && colaStockAsincrona.aplica(prefer)) {
+            ColaStockAsincrona.Aceptado aceptado = colaStockAsincrona.aceptar(id, stockDTO.getStock());
+            return ResponseEntity.accepted()
+                    .header(HEADER_PREFERENCIA_APLICADA, ColaStockAsincrona.PREFERENCIA)
+                    .header(HEADER_SECUENCIA_STOCK, String.valueOf(aceptado.secuencia()))
+                    .eTag(EtagProducto.generar(productoService.versionDe(aceptado.producto())))
+                    .body(productoService.convertirAProductoResponseDTO(aceptado.producto()));
+        }
         // El servicio lanza 404 si no existe
-        Producto productoGuardado = productoService.actualizarStock(id, stockDTO.getStock());
-        return ResponseEntity.ok(productoService.convertirAProductoResponseDTO(productoGuardado));
+        Producto productoGuardado = productoService.actualizarStock(id, stockDTO.getStock(), versionEsperada);
+        return conEtag(productoGuardado);
+    }
+
+    /**
+     * Endpoint para actualizar el stock de varios productos.
+     * PATCH /api/productos/stock/batch
+     * Retorna un resultado por elemento (mismo orden).
+     */
+    @Operation(summary = "Actualizar el stock de varios productos", description = "Valida cada elemento por separado y aplica los cambios en memoria; la base de datos se actualiza en segundo plano, en lotes. Retorna el resultado de cada elemento.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote procesado (revisar el estado de cada elemento)"),
+            @ApiResponse(responseCode = "400", description = "El lote supera el tamaño máximo permitido")
+    })
+    @CostoPeticion(10)
+    @PatchMapping("/stock/batch")
+    public ResponseEntity<List<ResultadoLoteDTO>> actualizarStockLote(@RequestBody List<ActualizacionStockLoteDTO> cambios) {
+        return ResponseEntity.ok(productoLoteService.actualizarStock(cambios));
+    }
+
+    /**
+     * Endpoint para reservar unidades de stock de forma atómica.
+     * POST /api/productos/{id}/stock/reservar
+     * Recibe MovimientoStockDTO validado
+     */
+    @Operation(summary = "Reservar stock de un producto", description = "Descuenta unidades del stock solo si hay suficientes. Nunca deja el stock negativo. La reserva se guarda en la base de datos en segundo plano, hasta productos.stock.intervalo-volcado-ms después de la respuesta.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock reservado exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos (ej. cantidad menor a 1)"),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado"),
+            @ApiResponse(responseCode = "409", description = "Stock insuficiente")
+    })
+    @PostMapping("/{id}/stock/reservar")
+    public ResponseEntity<ProductoResponseDTO> reservarStock(
+            @PathVariable Long id,
+            @Valid @RequestBody MovimientoStockDTO movimientoDTO) {
+
+        Producto producto = productoService.reservarStock(id, movimientoDTO.getCantidad());
+        return ResponseEntity.ok(productoService.convertirAProductoResponseDTO(producto));
+    }
+
+    /**
+     * Endpoint para liberar unidades de stock reservadas.
+     * POST /api/productos/{id}/stock/liberar
+     * Recibe MovimientoStockDTO validado
+     */
+    @Operation(summary = "Liberar stock reservado de un producto", description = "Devuelve al stock unidades reservadas previamente. Se guarda en la base de datos en segundo plano, hasta productos.stock.intervalo-volcado-ms después de la respuesta.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock liberado exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Datos de entrada inválidos (ej. cantidad menor a 1)"),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado")
+    })
+    @PostMapping("/{id}/stock/liberar")
+    public ResponseEntity<ProductoResponseDTO> liberarStock(
+            @PathVariable Long id,
+            @Valid @RequestBody MovimientoStockDTO movimientoDTO) {
+
+        Producto producto = productoService.liberarStock(id, movimientoDTO.getCantidad());
+        return ResponseEntity.ok(productoService.convertirAProductoResponseDTO(producto));
     }
 
     /**
@@ -175,4 +519,11 @@ public class ProductoController {
         productoService.eliminarProducto(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    // Respuesta 200 con el producto y su ETag (versión + stock vigente)
+    private ResponseEntity<ProductoResponseDTO> conEtag(Producto producto) {
+        return ResponseEntity.ok()
+                .eTag(EtagProducto.generar(productoService.versionDe(producto)))
+                .body(productoService.convertirAProductoResponseDTO(producto));
+    }
+}
@@ -0,0 +1,20 @@
+package com.utn.productos_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+@Schema(description = "DTO para actualizar el stock de un producto dentro de un lote")
+public class ActualizacionStockLoteDTO {
+
+    @NotNull(message = "El ID no puede ser nulo")
+    @Schema(description = "ID del producto", example = "1", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Long id;
+
+    @NotNull(message = "El stock no puede ser nulo")
+    @Min(value = 0, message = "El stock no puede ser negativo")
+    @Schema(description = "La nueva cantidad de stock", example = "45", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Integer stock;
+}
@@ -0,0 +1,34 @@
+package com.utn.productos_api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.utn.productos_api.event.ProductoCambiadoEvent;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Un cambio de producto dentro del registro de cambios")
+public class CambioProductoDTO {
+
+    @Schema(description = "Número de secuencia del cambio (creciente)", example = "1729180000000001")
+    private long secuencia;
+
+    @Schema(description = "Momento en que se confirmó el cambio")
+    private LocalDateTime fecha;
+
+    @Schema(description = "Tipo de cambio", example = "STOCK")
+    private ProductoCambiadoEvent.Tipo tipo;
+
+    @Schema(description = "ID del producto", example = "1")
+    private Long id;
+
+    // Estado del producto después del cambio (no se incluye cuando se elimina)
+    @Schema(description = "Producto después del cambio (ausente si se eliminó)")
+    private ProductoResponseDTO producto;
+}
@@ -0,0 +1,28 @@
+package com.utn.productos_api.dto;
+
+import com.utn.productos_api.model.Categoria;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resumen del inventario de una categoría")
+public class EstadisticaCategoriaDTO {
+
+    @Schema(description = "Categoría", example = "ELECTRONICA")
+    private Categoria categoria;
+
+    @Schema(description = "Cantidad de productos de la categoría", example = "120")
+    private long cantidadProductos;
+
+    @Schema(description = "Suma del stock de los productos", example = "3400")
+    private long stockTotal;
+
+    @Schema(description = "Valor del inventario (precio x stock)", example = "152340.50")
+    private BigDecimal valorInventario;
+}
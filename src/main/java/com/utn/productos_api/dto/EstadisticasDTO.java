@@ -0,0 +1,32 @@
+package com.utn.productos_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resumen del inventario: totales generales y por categoría")
+public class EstadisticasDTO {
+
+    @Schema(description = "Cantidad total de productos", example = "600")
+    private long cantidadProductos;
+
+    @Schema(description = "Suma del stock de todos los productos", example = "17000")
+    private long stockTotal;
+
+    @Schema(description = "Valor total del inventario (precio x stock)", example = "761702.50")
+    private BigDecimal valorInventario;
+
+    @Schema(description = "Totales de cada categoría")
+    private List<EstadisticaCategoriaDTO> categorias;
+
+    @Schema(description = "Última vez que los totales se verificaron contra la base de datos")
+    private LocalDateTime ultimaReconciliacion;
+}
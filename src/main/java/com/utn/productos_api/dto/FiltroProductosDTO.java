@@ -0,0 +1,55 @@
+package com.utn.productos_api.dto;
+
+import com.utn.productos_api.model.Categoria;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+@Schema(description = "Filtros combinables para consultar productos (todos opcionales)")
+public class FiltroProductosDTO {
+
+    @Schema(description = "Categoría del producto", example = "ELECTRONICA")
+    private Categoria categoria;
+
+    @DecimalMin(value = "0.0", message = "El precio mínimo no puede ser negativo")
+    @Schema(description = "Precio mínimo (inclusive)", example = "10.0")
+    private Double precioMin;
+
+    @DecimalMin(value = "0.0", message = "El precio máximo no puede ser negativo")
+    @Schema(description = "Precio máximo (inclusive)", example = "500.0")
+    private Double precioMax;
+
+    @Min(value = 0, message = "El stock mínimo no puede ser negativo")
+    @Schema(description = "Stock mínimo (inclusive)", example = "1")
+    private Integer stockMin;
+
+    @Min(value = 0, message = "El stock máximo no puede ser negativo")
+    @Schema(description = "Stock máximo (inclusive)", example = "100")
+    private Integer stockMax;
+
+    @Size(max = 100, message = "El prefijo del nombre no puede superar los 100 caracteres")
+    @Schema(description = "Prefijo del nombre del producto", example = "Tecl")
+    private String nombre;
+
+    @NotNull(message = "El campo de orden no puede ser nulo")
+    @Pattern(regexp = "id|nombre|precio|stock", message = "Solo se puede ordenar por id, nombre, precio o stock")
+    @Schema(description = "Campo por el que se ordena", example = "precio")
+    private String ordenarPor = "id";
+
+    @NotNull(message = "La dirección no puede ser nula")
+    @Pattern(regexp = "(?i)asc|desc", message = "La dirección debe ser asc o desc")
+    @Schema(description = "Dirección del orden", example = "asc")
+    private String direccion = "asc";
+
+    @NotNull(message = "El límite no puede ser nulo")
+    @Min(value = 1, message = "El límite debe ser al menos 1")
+    @Max(value = 1000, message = "El límite no puede superar 1000")
+    @Schema(description = "Cantidad máxima de resultados", example = "50")
+    private Integer limite = 50;
+}
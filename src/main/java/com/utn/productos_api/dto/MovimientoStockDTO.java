@@ -0,0 +1,16 @@
+package com.utn.productos_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+@Schema(description = "DTO para reservar o liberar unidades de stock de un producto")
+public class MovimientoStockDTO {
+
+    @NotNull(message = "La cantidad no puede ser nula")
+    @Min(value = 1, message = "La cantidad debe ser al menos 1")
+    @Schema(description = "Cantidad de unidades a reservar o liberar", example = "2", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Integer cantidad;
+}
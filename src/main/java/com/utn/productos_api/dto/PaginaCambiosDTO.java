@@ -0,0 +1,21 @@
+package com.utn.productos_api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Cambios de productos a partir de una secuencia")
+public class PaginaCambiosDTO {
+
+    @Schema(description = "Cambios en orden de secuencia (los de stock del mismo producto se agrupan en el último)")
+    private List<CambioProductoDTO> cambios;
+
+    @Schema(description = "Secuencia a enviar en since para pedir los cambios siguientes", example = "1729180000000042")
+    private long siguiente;
+}
@@ -2,27 +2,40 @@ package com.utn.productos_api.dto;
 
 import com.utn.productos_api.model.Categoria;
 import io.swagger.v3.oas.annotations.media.Schema;
-import lombok.Data;
 
-@Data
+import java.util.Objects;
+
+/**
+ * Inmutable: la misma instancia puede estar en la caché, en el índice de búsqueda y en los eventos
+ * sin copias defensivas. Lo construyen las consultas con proyección (select new ...) y ProductoMapper.
+ */
 @Schema(description = "DTO para mostrar la información de un producto (incluye ID)")
-public class ProductoResponseDTO {
+public record ProductoResponseDTO(
+
+        @Schema(description = "ID único del producto", example = "1")
+        Long id,
 
-    @Schema(description = "ID único del producto", example = "1")
-    private Long id;
+        @Schema(description = "Nombre del producto", example = "Teclado Mecánico RGB")
+        String nombre,
 
-    @Schema(description = "Nombre del producto", example = "Teclado Mecánico RGB")
-    private String nombre;
+        @Schema(description = "Descripción detallada del producto", example = "Teclado con switches Cherry MX Red")
+        String descripcion,
 
-    @Schema(description = "Descripción detallada del producto", example = "Teclado con switches Cherry MX Red")
-    private String descripcion;
+        @Schema(description = "Precio del producto", example = "120.50")
+        Double precio,
 
-    @Schema(description = "Precio del producto", example = "120.50")
-    private Double precio;
+        @Schema(description = "Cantidad en stock del producto", example = "50")
+        Integer stock,
 
-    @Schema(description = "Cantidad en stock del producto", example = "50")
-    private Integer stock;
+        @Schema(description = "Categoría del producto", example = "ELECTRONICA")
+        Categoria categoria) {
 
-    @Schema(description = "Categoría del producto", example = "ELECTRONICA")
-    private Categoria categoria;
+    /**
+     * Copia con otro stock (el vigente de MotorStock); si no cambia devuelve la misma instancia.
+     */
+    public ProductoResponseDTO conStock(Integer nuevoStock) {
+        return Objects.equals(stock, nuevoStock)
+                ? this
+                : new ProductoResponseDTO(id, nombre, descripcion, precio, nuevoStock, categoria);
+    }
 }
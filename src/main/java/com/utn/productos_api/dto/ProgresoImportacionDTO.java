@@ -0,0 +1,62 @@
+package com.utn.productos_api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Cada línea NDJSON que devuelve POST /api/productos/import: un error de una línea de la entrada,
+ * el avance después de cada bloque guardado o el resumen final.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Avance, error por línea o resumen de una importación")
+public class ProgresoImportacionDTO {
+
+    public enum Tipo {
+        ERROR,
+        PROGRESO,
+        RESUMEN
+    }
+
+    @Schema(description = "Tipo de evento", example = "PROGRESO")
+    private Tipo tipo;
+
+    @Schema(description = "Línea del archivo con error (la primera es 1)", example = "12")
+    private Long linea;
+
+    @Schema(description = "Motivo del error", example = "Error de validación")
+    private String mensaje;
+
+    @Schema(description = "Errores de validación por campo")
+    private Map<String, String> validationErrors;
+
+    @Schema(description = "Líneas procesadas hasta el momento", example = "5000")
+    private Long procesadas;
+
+    @Schema(description = "Productos creados hasta el momento", example = "4990")
+    private Long creados;
+
+    @Schema(description = "Líneas con error hasta el momento", example = "10")
+    private Long errores;
+
+    public static ProgresoImportacionDTO error(long linea, String mensaje, Map<String, String> validationErrors) {
+        ProgresoImportacionDTO progreso = new ProgresoImportacionDTO();
+        progreso.setTipo(Tipo.ERROR);
+        progreso.setLinea(linea);
+        progreso.setMensaje(mensaje);
+        progreso.setValidationErrors(validationErrors);
+        return progreso;
+    }
+
+    public static ProgresoImportacionDTO avance(Tipo tipo, long procesadas, long creados, long errores) {
+        ProgresoImportacionDTO progreso = new ProgresoImportacionDTO();
+        progreso.setTipo(tipo);
+        progreso.setProcesadas(procesadas);
+        progreso.setCreados(creados);
+        progreso.setErrores(errores);
+        return progreso;
+    }
+}
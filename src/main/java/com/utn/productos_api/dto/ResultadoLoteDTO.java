@@ -0,0 +1,52 @@
+package com.utn.productos_api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Resultado de un elemento dentro de una operación por lotes")
+public class ResultadoLoteDTO {
+
+    public enum Estado {
+        OK,
+        ERROR
+    }
+
+    @Schema(description = "Posición del elemento en el lote recibido (empieza en 0)", example = "0")
+    private int indice;
+
+    @Schema(description = "ID del producto creado o actualizado", example = "1")
+    private Long id;
+
+    @Schema(description = "Resultado de la operación", example = "OK")
+    private Estado estado;
+
+    @Schema(description = "Motivo del error, si lo hubo", example = "Error de validación")
+    private String mensaje;
+
+    // Errores de validación por campo (ej. "nombre": "no puede estar vacío")
+    @Schema(description = "Errores de validación por campo")
+    private Map<String, String> validationErrors;
+
+    public static ResultadoLoteDTO ok(int indice, Long id) {
+        ResultadoLoteDTO resultado = new ResultadoLoteDTO();
+        resultado.setIndice(indice);
+        resultado.setId(id);
+        resultado.setEstado(Estado.OK);
+        return resultado;
+    }
+
+    public static ResultadoLoteDTO error(int indice, Long id, String mensaje, Map<String, String> validationErrors) {
+        ResultadoLoteDTO resultado = new ResultadoLoteDTO();
+        resultado.setIndice(indice);
+        resultado.setId(id);
+        resultado.setEstado(Estado.ERROR);
+        resultado.setMensaje(mensaje);
+        resultado.setValidationErrors(validationErrors);
+        return resultado;
+    }
+}
@@ -0,0 +1,20 @@
+package com.utn.productos_api.dto;
+
+import com.utn.productos_api.model.Categoria;
+import lombok.Value;
+
+/**
+ * Totales de una categoría calculados por la base de datos (GROUP BY categoria).
+ * El valor del inventario va en centavos para sumar sin errores de redondeo.
+ */
+@Value
+public class TotalesCategoriaDTO {
+
+    Categoria categoria;
+
+    Long cantidadProductos;
+
+    Long stockTotal;
+
+    Long valorCentavos;
+}
@@ -0,0 +1,15 @@
+package com.utn.productos_api.dto;
+
+import lombok.Value;
+
+/**
+ * Versión de un producto usada para armar su ETag: la versión de la fila (@Version)
+ * y el stock vigente, que MotorStock puede cambiar sin modificar la fila.
+ */
+@Value
+public class VersionProductoDTO {
+
+    Long version;
+
+    Integer stock;
+}
@@ -0,0 +1,30 @@
+package com.utn.productos_api.event;
+
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import lombok.Value;
+
+/**
+ * Evento que publica ProductoService cada vez que un producto se crea, modifica o elimina.
+ * Lleva una foto del producto antes y después del cambio para que los interesados
+ * (por ejemplo la caché) puedan reaccionar sin volver a consultar la base de datos.
+ */
+@Value
+public class ProductoCambiadoEvent {
+
+    public enum Tipo {
+        CREADO,
+        ACTUALIZADO,
+        STOCK,
+        ELIMINADO
+    }
+
+    Tipo tipo;
+
+    Long id;
+
+    // Estado previo al cambio (null cuando el producto se crea)
+    ProductoResponseDTO anterior;
+
+    // Estado posterior al cambio (null cuando el producto se elimina)
+    ProductoResponseDTO actual;
+}
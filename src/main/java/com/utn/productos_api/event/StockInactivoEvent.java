@@ -0,0 +1,17 @@
+package com.utn.productos_api.event;
+
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * Evento que publica MotorStock antes de dejar de seguir en memoria los productos sin cambios recientes.
+ * Lleva el stock de cada uno, que ya está en la base, para que quien guarde una copia del producto
+ * (por ejemplo el índice de búsqueda) la actualice: sin el contador, esa copia vuelve a ser el stock que se responde.
+ */
+@Value
+public class StockInactivoEvent {
+
+    // ID -> último stock del contador
+    Map<Long, Integer> stocks;
+}
@@ -0,0 +1,13 @@
+package com.utn.productos_api.exception;
+
+/**
+ * Excepción que se lanza cuando se piden cambios a partir de una secuencia que ya no está
+ * en el registro de cambios (el cliente se atrasó demasiado o la API se reinició).
+ * El cliente debe volver a sincronizar el catálogo completo.
+ */
+public class CambiosExpiradosException extends ErrorDominioException {
+
+    public CambiosExpiradosException(String message) {
+        super(message);
+    }
+}
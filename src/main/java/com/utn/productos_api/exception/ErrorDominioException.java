@@ -0,0 +1,14 @@
+package com.utn.productos_api.exception;
+
+/**
+ * Base de los errores esperados del dominio (producto inexistente, stock insuficiente, etc.).
+ * GlobalExceptionHandler los traduce siempre a una respuesta HTTP, nunca se registran en el log,
+ * así que no se captura el stack trace: es lo más caro de crear una excepción y nadie lo lee.
+ */
+public abstract class ErrorDominioException extends RuntimeException {
+
+    protected ErrorDominioException(String message) {
+        // Sin causa, sin excepciones suprimidas y sin stack trace
+        super(message, null, false, false);
+    }
+}
@@ -1,11 +1,18 @@
 package com.utn.productos_api.exception;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
+import org.springframework.http.HttpStatus;
 
 import java.time.LocalDateTime;
 import java.util.Map;
 
+/**
+ * Cuerpo de las respuestas de error. Además de los campos propios (timestamp, status, message, path)
+ * incluye los de RFC 7807 (type, title, detail, instance), que se responden como application/problem+json.
+ * Los campos RFC 7807 se derivan de los propios, no guardan copias.
+ */
 @Data
 // Esta anotación de Jackson es útil para no incluir campos nulos (como validationErrors) en el JSON
 @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -35,4 +42,28 @@ public class ErrorResponse {
         this.path = path;
         this.validationErrors = validationErrors;
     }
+
+    // Campos de RFC 7807 (Problem Details)
+
+    // Sin tipos de problema propios: "about:blank" indica que el significado es el del código HTTP
+    @JsonProperty("type")
+    public String getType() {
+        return "about:blank";
+    }
+
+    @JsonProperty("title")
+    public String getTitle() {
+        HttpStatus httpStatus = HttpStatus.resolve(status);
+        return httpStatus != null ? httpStatus.getReasonPhrase() : null;
+    }
+
+    @JsonProperty("detail")
+    public String getDetail() {
+        return message;
+    }
+
+    @JsonProperty("instance")
+    public String getInstance() {
+        return path;
+    }
 }
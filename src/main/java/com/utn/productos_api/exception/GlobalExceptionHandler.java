@@ -1,20 +1,38 @@
 package com.utn.productos_api.exception;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.context.request.WebRequest;
 
+import java.sql.SQLTransientConnectionException;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Traduce las excepciones a respuestas de error (ErrorResponse como application/problem+json).
+ * Es un camino que puede recibir ráfagas (ej. IDs inexistentes pedidos al azar), por eso
+ * trabaja con lo mínimo: las excepciones de dominio no tienen stack trace (ErrorDominioException),
+ * los mensajes fijos son constantes y la ruta se toma directo de la petición.
+ */
 @ControllerAdvice // Marca esta clase como un manejador global de excepciones
 public class GlobalExceptionHandler {
 
+    private static final String MENSAJE_MODIFICADO = "El producto fue modificado por otra petición";
+    private static final String MENSAJE_VALIDACION = "Error de validación";
+    private static final String MENSAJE_ERROR_INTERNO = "Error interno del servidor: ";
+    private static final String SEGUNDOS_REINTENTO = "1";
+
     /**
      * Maneja la excepción ProductoNotFoundException.
      * Retorna un código 404 Not Found.
@@ -22,14 +40,91 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(ProductoNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleProductoNotFoundException(
             ProductoNotFoundException ex, WebRequest request) {
+        return responder(HttpStatus.NOT_FOUND, ex.getMessage(), request); // 404
+    }
 
-        ErrorResponse error = new ErrorResponse(
-                LocalDateTime.now(),
-                HttpStatus.NOT_FOUND.value(), // 404
-                ex.getMessage(), // Mensaje de nuestra excepción
-                request.getDescription(false).replace("uri=", "") // Ruta de la petición
-        );
-        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    /**
+     * Maneja la excepción StockInsuficienteException.
+     * Retorna un código 409 Conflict.
+     */
+    @ExceptionHandler(StockInsuficienteException.class)
+    public ResponseEntity<ErrorResponse> handleStockInsuficienteException(
+            StockInsuficienteException ex, WebRequest request) {
+        return responder(HttpStatus.CONFLICT, ex.getMessage(), request); // 409
+    }
+
+    /**
+     * Maneja la excepción SolicitudInvalidaException.
+     * Retorna un código 400 Bad Request.
+     */
+    @ExceptionHandler(SolicitudInvalidaException.class)
+    public ResponseEntity<ErrorResponse> handleSolicitudInvalidaException(
+            SolicitudInvalidaException ex, WebRequest request) {
+        return responder(HttpStatus.BAD_REQUEST, ex.getMessage(), request); // 400
+    }
+
+    /**
+     * Maneja la excepción PrecondicionFallidaException (If-Match no coincide).
+     * Retorna un código 412 Precondition Failed.
+     */
+    @ExceptionHandler(PrecondicionFallidaException.class)
+    public ResponseEntity<ErrorResponse> handlePrecondicionFallidaException(
+            PrecondicionFallidaException ex, WebRequest request) {
+        return responder(HttpStatus.PRECONDITION_FAILED, ex.getMessage(), request); // 412
+    }
+
+    /**
+     * Maneja la excepción CambiosExpiradosException.
+     * Retorna un código 410 Gone: los cambios pedidos ya no están disponibles.
+     */
+    @ExceptionHandler(CambiosExpiradosException.class)
+    public ResponseEntity<ErrorResponse> handleCambiosExpiradosException(
+            CambiosExpiradosException ex, WebRequest request) {
+        return responder(HttpStatus.GONE, ex.getMessage(), request); // 410
+    }
+
+    /**
+     * Maneja la excepción LimiteExcedidoException (el cliente superó su cuota).
+     * Retorna un código 429 Too Many Requests con Retry-After.
+     */
+    @ExceptionHandler(LimiteExcedidoException.class)
+    public ResponseEntity<ErrorResponse> handleLimiteExcedidoException(
+            LimiteExcedidoException ex, WebRequest request) {
+        ErrorResponse error = new ErrorResponse(LocalDateTime.now(), HttpStatus.TOO_MANY_REQUESTS.value(),
+                ex.getMessage(), ruta(request));
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS) // 429
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getSegundosReintento()))
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(error);
+    }
+
+    /**
+     * Maneja la excepción ServicioSaturadoException.
+     * Retorna un código 503 Service Unavailable con Retry-After para que el cliente reintente.
+     */
+    @ExceptionHandler(ServicioSaturadoException.class)
+    public ResponseEntity<ErrorResponse> handleServicioSaturadoException(
+            ServicioSaturadoException ex, WebRequest request) {
+        ErrorResponse error = new ErrorResponse(LocalDateTime.now(), HttpStatus.SERVICE_UNAVAILABLE.value(),
+                ex.getMessage(), ruta(request));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE) // 503
+                .header(HttpHeaders.RETRY_AFTER, SEGUNDOS_REINTENTO)
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(error);
+    }
+
+    /**
+     * Maneja los conflictos de concurrencia optimista (otra petición modificó el producto).
+     * Retorna 412 si el cliente envió If-Match, o 409 Conflict en caso contrario.
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(
+            ObjectOptimisticLockingFailureException ex, WebRequest request) {
+
+        HttpStatus status = request.getHeader(HttpHeaders.IF_MATCH) != null
+                ? HttpStatus.PRECONDITION_FAILED // 412
+                : HttpStatus.CONFLICT; // 409
+        return responder(status, MENSAJE_MODIFICADO, request);
     }
 
     /**
@@ -41,38 +136,59 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleValidationExceptions(
             MethodArgumentNotValidException ex, WebRequest request) {
 
-        // Creamos un mapa para guardar los errores de campo (ej. "nombre": "no puede estar vacío")
-        Map<String, String> errors = new HashMap<>();
-        ex.getBindingResult().getAllErrors().forEach((error) -> {
-            String fieldName = ((FieldError) error).getField();
-            String errorMessage = error.getDefaultMessage();
-            errors.put(fieldName, errorMessage);
-        });
+        // Creamos un mapa para guardar los errores de campo (ej. "nombre": "no puede estar vacío"),
+        // dimensionado para la cantidad de errores así no se redimensiona
+        List<FieldError> erroresDeCampo = ex.getBindingResult().getFieldErrors();
+        Map<String, String> errors = new LinkedHashMap<>((int) (erroresDeCampo.size() / 0.75f) + 1);
+        for (FieldError error : erroresDeCampo) {
+            // Los mensajes salen de las anotaciones de validación: son constantes, no se copian
+            errors.put(error.getField(), error.getDefaultMessage());
+        }
 
         ErrorResponse error = new ErrorResponse(
                 LocalDateTime.now(),
                 HttpStatus.BAD_REQUEST.value(), // 400
-                "Error de validación",
-                request.getDescription(false).replace("uri=", ""),
+                MENSAJE_VALIDACION,
+                ruta(request),
                 errors // Incluimos el mapa de errores
         );
-        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(error);
     }
 
     /**
      * Manejador genérico para cualquier otra excepción no controlada.
      * Retorna un código 500 Internal Server Error.
+     * La falta de conexiones a la base (SQLTransientConnectionException del límite de concurrencia o de Hikari)
+     * llega envuelta por Spring o Hibernate: se responde como ServicioSaturadoException (503 con Retry-After).
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGlobalException(
             Exception ex, WebRequest request) {
+        for (Throwable causa = ex; causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLTransientConnectionException) {
+                return handleServicioSaturadoException(new ServicioSaturadoException(causa.getMessage()), request);
+            }
+        }
+        return responder(HttpStatus.INTERNAL_SERVER_ERROR, MENSAJE_ERROR_INTERNO + ex.getMessage(), request); // 500
+    }
 
-        ErrorResponse error = new ErrorResponse(
-                LocalDateTime.now(),
-                HttpStatus.INTERNAL_SERVER_ERROR.value(), // 500
-                "Error interno del servidor: " + ex.getMessage(),
-                request.getDescription(false).replace("uri=", "")
-        );
-        return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+    private static ResponseEntity<ErrorResponse> responder(HttpStatus status, String mensaje, WebRequest request) {
+        ErrorResponse error = new ErrorResponse(LocalDateTime.now(), status.value(), mensaje, ruta(request));
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(error);
+    }
+
+    // Ruta de la petición: la URI ya está en la petición, sin armar "uri=..." y recortarlo
+    private static String ruta(WebRequest request) {
+        if (request instanceof NativeWebRequest nativa) {
+            HttpServletRequest servlet = nativa.getNativeRequest(HttpServletRequest.class);
+            if (servlet != null) {
+                return servlet.getRequestURI();
+            }
+        }
+        return request.getDescription(false).replace("uri=", "");
     }
 }
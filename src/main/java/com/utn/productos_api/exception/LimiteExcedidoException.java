@@ -0,0 +1,18 @@
+package com.utn.productos_api.exception;
+
+import lombok.Getter;
+
+/**
+ * Excepción que se lanza cuando un cliente superó su cuota de peticiones (429 Too Many Requests).
+ * Indica cuántos segundos faltan para que vuelva a tener cuota suficiente (cabecera Retry-After).
+ */
+@Getter
+public class LimiteExcedidoException extends ErrorDominioException {
+
+    private final long segundosReintento;
+
+    public LimiteExcedidoException(String message, long segundosReintento) {
+        super(message);
+        this.segundosReintento = segundosReintento;
+    }
+}
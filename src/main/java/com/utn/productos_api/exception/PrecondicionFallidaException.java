@@ -0,0 +1,11 @@
+package com.utn.productos_api.exception;
+
+/**
+ * Excepción que se lanza cuando el ETag enviado en If-Match no coincide con la versión actual del producto.
+ */
+public class PrecondicionFallidaException extends ErrorDominioException {
+
+    public PrecondicionFallidaException(String message) {
+        super(message);
+    }
+}
@@ -2,11 +2,25 @@ package com.utn.productos_api.exception;
 
 /**
  * Excepción personalizada que se lanza cuando no se encuentra un producto.
- * Extiende de RuntimeException para evitar 'checked exceptions'.
+ * Extiende de RuntimeException (a través de ErrorDominioException) para evitar 'checked exceptions'.
  */
-public class ProductoNotFoundException extends RuntimeException {
+public class ProductoNotFoundException extends ErrorDominioException {
+
+    private final Long id;
 
     public ProductoNotFoundException(String message) {
         super(message);
+        this.id = null;
+    }
+
+    // El mensaje se arma recién cuando se pide (al responder), no al lanzar la excepción
+    public ProductoNotFoundException(Long id) {
+        super(null);
+        this.id = id;
+    }
+
+    @Override
+    public String getMessage() {
+        return id != null ? "Producto no encontrado con ID: " + id : super.getMessage();
     }
 }
@@ -0,0 +1,13 @@
+package com.utn.productos_api.exception;
+
+/**
+ * Excepción que se lanza cuando la API no puede atender la petición a tiempo
+ * (ej. la lectura compartida de la que depende tardó más de lo permitido).
+ * El cliente puede reintentar en unos instantes.
+ */
+public class ServicioSaturadoException extends ErrorDominioException {
+
+    public ServicioSaturadoException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.utn.productos_api.exception;
+
+/**
+ * Excepción que se lanza cuando la petición es inválida por motivos que no cubren
+ * las anotaciones de validación (por ejemplo, un lote demasiado grande).
+ */
+public class SolicitudInvalidaException extends ErrorDominioException {
+
+    public SolicitudInvalidaException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.utn.productos_api.exception;
+
+/**
+ * Excepción que se lanza cuando se intenta reservar más unidades que el stock disponible.
+ */
+public class StockInsuficienteException extends ErrorDominioException {
+
+    public StockInsuficienteException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,39 @@
+package com.utn.productos_api.mapper;
+
+import com.utn.productos_api.dto.ProductoDTO;
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.model.Producto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Conversiones entre la entidad Producto y sus DTOs. MapStruct genera la implementación al compilar
+ * (ProductoMapperImpl): son copias directas campo a campo, sin reflexión, y un campo nuevo que
+ * no se mapee hace fallar la compilación (unmappedTargetPolicy = ERROR).
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface ProductoMapper {
+
+    /**
+     * DTO de respuesta con el stock indicado (el vigente, que puede no ser el de la entidad).
+     */
+    // conStock es el método de copia del record, no una propiedad: sin el ignore MapStruct lo toma como setter fluido
+    @Mapping(target = "stock", source = "stock")
+    @Mapping(target = "conStock", ignore = true)
+    ProductoResponseDTO aResponseDTO(Producto producto, Integer stock);
+
+    // El ID lo asigna la secuencia y la versión la maneja Hibernate
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    Producto aEntidad(ProductoDTO dto);
+
+    /**
+     * Copia los datos editables de una entidad con los valores nuevos sobre la existente (PUT).
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void actualizarEntidad(Producto datos, @MappingTarget Producto producto);
+}
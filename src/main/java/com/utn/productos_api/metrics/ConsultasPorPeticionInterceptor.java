@@ -0,0 +1,37 @@
+package com.utn.productos_api.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Registra cuántas sentencias SQL ejecutó cada petición, agrupadas por método HTTP y ruta.
+ */
+public class ConsultasPorPeticionInterceptor implements HandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    public ConsultasPorPeticionInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ContadorConsultas.reiniciar();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object ruta = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("productos.consultas.por.peticion")
+                .description("Sentencias SQL ejecutadas por petición")
+                .tag("method", request.getMethod())
+                .tag("uri", ruta != null ? ruta.toString() : "UNKNOWN")
+                .register(meterRegistry)
+                .record(ContadorConsultas.actual());
+    }
+}
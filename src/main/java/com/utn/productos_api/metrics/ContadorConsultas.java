@@ -0,0 +1,28 @@
+package com.utn.productos_api.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo actual.
+ * Hibernate lo instancia a partir de hibernate.session_factory.statement_inspector;
+ * ConsultasPorPeticionInterceptor reinicia el contador al empezar cada petición y
+ * registra el total al terminarla (sirve para detectar consultas N+1).
+ */
+public class ContadorConsultas implements StatementInspector {
+
+    private static final ThreadLocal<int[]> CONSULTAS = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        CONSULTAS.get()[0]++;
+        return sql;
+    }
+
+    public static void reiniciar() {
+        CONSULTAS.get()[0] = 0;
+    }
+
+    public static int actual() {
+        return CONSULTAS.get()[0];
+    }
+}
@@ -0,0 +1,39 @@
+package com.utn.productos_api.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Conversor JSON de Spring MVC que además mide cuánto tarda la serialización de cada respuesta.
+ * Así el tiempo de una petición se puede separar en base de datos, mapeo y serialización.
+ */
+public class MedicionJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final MeterRegistry meterRegistry;
+
+    public MedicionJacksonHttpMessageConverter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        super(objectMapper);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            muestra.stop(Timer.builder("productos.serializacion")
+                    .description("Tiempo de serialización JSON de las respuestas")
+                    .tag("tipo", object.getClass().getSimpleName())
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -2,16 +2,29 @@ package com.utn.productos_api.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * Entidad que representa la tabla Producto en la base de datos
  */
 @Entity // Anota la clase como una entidad JPA
+// Índices para las consultas por categoría. Al empezar por categoria también sirven
+// para filtrar solo por esa columna, sin necesidad de un índice aparte.
+// El de nombre atiende las búsquedas por prefijo (LIKE 'texto%').
+@Table(indexes = {
+        @Index(name = "idx_producto_categoria_precio", columnList = "categoria, precio"),
+        @Index(name = "idx_producto_categoria_stock", columnList = "categoria, stock"),
+        @Index(name = "idx_producto_nombre", columnList = "nombre")
+})
 @Data   // Anotación de Lombok para generar getters, setters, toString, etc.
+@DynamicUpdate // El UPDATE incluye solo las columnas modificadas (más la versión)
 public class Producto {
 
     @Id // Clave primaria
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Generación autoincremental
+    // Secuencia "pooled": Hibernate reserva 50 IDs por consulta a la secuencia, lo que permite
+    // agrupar los INSERT en batches de JDBC (con IDENTITY cada INSERT se ejecuta por separado)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "producto_seq")
+    @SequenceGenerator(name = "producto_seq", sequenceName = "producto_seq", allocationSize = 50)
     private Long id;
 
     private String nombre;
@@ -24,4 +37,7 @@ public class Producto {
 
     @Enumerated(EnumType.STRING) // Le dice a JPA que guarde el Enum como su nombre (ej. "ROPA") y no como un número
     private Categoria categoria;
+
+    @Version // Control de concurrencia optimista: cada UPDATE verifica e incrementa la versión
+    private Long version;
 }
\ No newline at end of file
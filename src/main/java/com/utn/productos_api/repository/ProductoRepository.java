@@ -1,14 +1,26 @@
 package com.utn.productos_api.repository;
 
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.dto.TotalesCategoriaDTO;
+import com.utn.productos_api.dto.VersionProductoDTO;
 import com.utn.productos_api.model.Categoria;
 import com.utn.productos_api.model.Producto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
 
     /**
      * Método personalizado para buscar productos por su categoría.
@@ -16,4 +28,62 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
      *
      */
     List<Producto> findByCategoria(Categoria categoria);
+
+    /**
+     * Igual que findByCategoria pero proyecta directamente al DTO de respuesta.
+     * Hibernate no crea entidades administradas ni guarda copias para el dirty-checking,
+     * y la búsqueda usa el índice que empieza por categoria.
+     */
+    @Query("select new com.utn.productos_api.dto.ProductoResponseDTO(p.id, p.nombre, p.descripcion, p.precio, p.stock, p.categoria)"
+            + " from Producto p where p.categoria = :categoria order by p.id")
+    List<ProductoResponseDTO> findResumenByCategoria(@Param("categoria") Categoria categoria);
+
+    /**
+     * Recorre toda la tabla como un cursor de la base de datos en lugar de cargarla en una lista.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar (try-with-resources).
+     * Proyecta directo al DTO de respuesta: no hay entidades en el contexto de persistencia.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.utn.productos_api.dto.ProductoResponseDTO(p.id, p.nombre, p.descripcion, p.precio, p.stock, p.categoria)"
+            + " from Producto p order by p.id")
+    Stream<ProductoResponseDTO> streamResumen();
+
+    /**
+     * Lee un producto proyectado al DTO de respuesta, sin cargar la entidad
+     * (la foto previa de una eliminación cuando el producto no está en caché).
+     */
+    @Query("select new com.utn.productos_api.dto.ProductoResponseDTO(p.id, p.nombre, p.descripcion, p.precio, p.stock, p.categoria)"
+            + " from Producto p where p.id = :id")
+    Optional<ProductoResponseDTO> findResumenById(@Param("id") Long id);
+
+    /**
+     * Lee solamente el stock de un producto, sin cargar la entidad completa.
+     */
+    @Query("select p.stock from Producto p where p.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
+
+    /**
+     * Elimina un producto con un único DELETE, sin cargarlo antes.
+     * Retorna la cantidad de filas eliminadas (0 si el ID no existe).
+     */
+    @Modifying
+    @Query("delete from Producto p where p.id = :id")
+    int eliminarPorId(@Param("id") Long id);
+
+    /**
+     * Cantidad de productos, stock total y valor del inventario (en centavos) de cada categoría.
+     * El precio se redondea a centavos antes de multiplicar, igual que en EstadisticasService.
+     * La transacción no es de solo lectura a propósito: con réplicas se consulta la primaria,
+     * que es la que acaba de recibir el volcado de MotorStock.
+     */
+    @Transactional
+    @Query("select new com.utn.productos_api.dto.TotalesCategoriaDTO(p.categoria, count(p), sum(p.stock),"
+            + " sum(cast(round(p.precio * 100, 0) as Long) * p.stock)) from Producto p group by p.categoria")
+    List<TotalesCategoriaDTO> totalesPorCategoria();
+
+    /**
+     * Lee la versión y el stock de un producto (lo necesario para su ETag) sin cargar la entidad.
+     */
+    @Query("select new com.utn.productos_api.dto.VersionProductoDTO(p.version, p.stock) from Producto p where p.id = :id")
+    Optional<VersionProductoDTO> findVersionById(@Param("id") Long id);
 }
@@ -0,0 +1,20 @@
+package com.utn.productos_api.repository;
+
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.model.Producto;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Consultas de ProductoRepository que se arman a mano con la API de Criteria.
+ */
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Ejecuta la Specification proyectando directamente a ProductoResponseDTO,
+     * con orden y límite aplicados en la base de datos.
+     */
+    List<ProductoResponseDTO> buscarResumen(Specification<Producto> specification, Sort orden, int limite);
+}
@@ -0,0 +1,46 @@
+package com.utn.productos_api.repository;
+
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.model.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+/**
+ * Implementación de ProductoRepositoryCustom. Spring Data la combina con ProductoRepository
+ * por el sufijo "Impl" del nombre.
+ */
+public class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductoResponseDTO> buscarResumen(Specification<Producto> specification, Sort orden, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductoResponseDTO> query = cb.createQuery(ProductoResponseDTO.class);
+        Root<Producto> root = query.from(Producto.class);
+
+        query.select(cb.construct(ProductoResponseDTO.class,
+                root.get("id"), root.get("nombre"), root.get("descripcion"),
+                root.get("precio"), root.get("stock"), root.get("categoria")));
+
+        Predicate condicion = specification.toPredicate(root, query, cb);
+        if (condicion != null) {
+            query.where(condicion);
+        }
+        query.orderBy(QueryUtils.toOrders(orden, root, cb));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limite)
+                .getResultList();
+    }
+}
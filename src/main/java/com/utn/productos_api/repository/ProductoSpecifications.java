@@ -0,0 +1,72 @@
+package com.utn.productos_api.repository;
+
+import com.utn.productos_api.dto.FiltroProductosDTO;
+import com.utn.productos_api.model.Categoria;
+import com.utn.productos_api.model.Producto;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Condiciones reutilizables para consultar productos con la API de Criteria.
+ * Cada método devuelve null si el filtro no se envió, y Specification ignora los null al combinarlos.
+ */
+public final class ProductoSpecifications {
+
+    private ProductoSpecifications() {
+    }
+
+    /**
+     * Combina todos los filtros presentes con AND.
+     */
+    public static Specification<Producto> desdeFiltro(FiltroProductosDTO filtro) {
+        return Specification.allOf(
+                conCategoria(filtro.getCategoria()),
+                precioDesde(filtro.getPrecioMin()),
+                precioHasta(filtro.getPrecioMax()),
+                stockDesde(filtro.getStockMin()),
+                stockHasta(filtro.getStockMax()),
+                nombreEmpiezaCon(filtro.getNombre()));
+    }
+
+    /**
+     * Paginación por cursor (keyset): productos con ID mayor al cursor. A diferencia de OFFSET,
+     * el costo no crece a medida que se avanza porque la base arranca desde la clave primaria.
+     */
+    public static Specification<Producto> idMayorQue(Long cursor) {
+        return cursor == null ? null : (root, query, cb) -> cb.greaterThan(root.get("id"), cursor);
+    }
+
+    public static Specification<Producto> conCategoria(Categoria categoria) {
+        return categoria == null ? null : (root, query, cb) -> cb.equal(root.get("categoria"), categoria);
+    }
+
+    public static Specification<Producto> precioDesde(Double precio) {
+        return precio == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("precio"), precio);
+    }
+
+    public static Specification<Producto> precioHasta(Double precio) {
+        return precio == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("precio"), precio);
+    }
+
+    public static Specification<Producto> stockDesde(Integer stock) {
+        return stock == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("stock"), stock);
+    }
+
+    public static Specification<Producto> stockHasta(Integer stock) {
+        return stock == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("stock"), stock);
+    }
+
+    /**
+     * LIKE 'prefijo%': al no empezar con comodín la base puede usar el índice sobre nombre.
+     */
+    public static Specification<Producto> nombreEmpiezaCon(String prefijo) {
+        if (prefijo == null || prefijo.isBlank()) {
+            return null;
+        }
+        String patron = escaparLike(prefijo) + "%";
+        return (root, query, cb) -> cb.like(root.get("nombre"), patron, '\\');
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
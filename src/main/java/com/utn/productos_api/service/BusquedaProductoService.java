@@ -0,0 +1,120 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.event.ProductoCambiadoEvent;
+import com.utn.productos_api.event.StockInactivoEvent;
+import com.utn.productos_api.exception.ServicioSaturadoException;
+import com.utn.productos_api.exception.SolicitudInvalidaException;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Búsqueda de texto sobre nombre y descripción con un índice invertido en memoria.
+ * El índice se arma una vez al iniciar, recorriendo la tabla en streaming, y después se
+ * mantiene al día con los ProductoCambiadoEvent que publican las escrituras de ProductoService.
+ * Hasta que termina la carga inicial las búsquedas responden 503: un resultado vacío o incompleto
+ * parecería una respuesta válida.
+ */
+@Service
+public class BusquedaProductoService {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaProductoService.class);
+
+    private final ProductoService productoService;
+    private final IndiceInvertido indice = new IndiceInvertido();
+
+    // Productos cambiados por eventos mientras se arma el índice: la carga inicial no los pisa.
+    // La carga consulta el conjunto e indexa bajo el lock del servicio, y un evento lo marca e indexa
+    // bajo el mismo lock: si no, un evento podía llegar entre la consulta y el indexado y perderse
+    private final Set<Long> cambiadosDuranteCarga = new HashSet<>();
+    private volatile boolean cargando = true;
+
+    @Autowired
+    public BusquedaProductoService(ProductoService productoService) {
+        this.productoService = productoService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirIndice() {
+        productoService.recorrerTodos(producto -> {
+            synchronized (this) {
+                if (!cambiadosDuranteCarga.contains(producto.id())) {
+                    indice.indexar(producto);
+                }
+            }
+        });
+        synchronized (this) {
+            cargando = false;
+            cambiadosDuranteCarga.clear();
+        }
+        log.info("Índice de búsqueda construido con {} productos", indice.tamanio());
+    }
+
+    /**
+     * Busca productos cuyo nombre o descripción contengan todas las palabras de la consulta
+     * (sin distinguir acentos ni mayúsculas; la última puede estar incompleta).
+     * Los resultados van ordenados por relevancia y llevan el stock vigente.
+     * Lanza 503 mientras el índice se está construyendo.
+     */
+    @Timed(ProductoService.METRICA_SERVICIO)
+    public List<ProductoResponseDTO> buscar(String consulta, int limite) {
+        if (consulta == null || consulta.isBlank()) {
+            throw new SolicitudInvalidaException("El parámetro q no puede estar vacío");
+        }
+        if (cargando) {
+            throw new ServicioSaturadoException("El índice de búsqueda todavía se está construyendo");
+        }
+        int tamanio = Math.min(Math.max(limite, 1), ProductoService.LIMITE_MAXIMO_PAGINA);
+        List<IndiceInvertido.Coincidencia> coincidencias = indice.buscar(consulta, tamanio);
+        List<ProductoResponseDTO> productos = new ArrayList<>(coincidencias.size());
+        for (IndiceInvertido.Coincidencia coincidencia : coincidencias) {
+            productos.add(coincidencia.producto());
+        }
+        return productoService.conStockVigente(productos);
+    }
+
+    // Después del commit, igual que la caché: un cambio que se revierte no llega al índice
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoCambiadoEvent evento) {
+        // El stock no se indexa: se toma de MotorStock al responder
+        if (evento.getTipo() == ProductoCambiadoEvent.Tipo.STOCK) {
+            return;
+        }
+        if (cargando) {
+            synchronized (this) {
+                if (cargando) {
+                    cambiadosDuranteCarga.add(evento.getId());
+                    aplicar(evento);
+                    return;
+                }
+            }
+        }
+        aplicar(evento);
+    }
+
+    private void aplicar(ProductoCambiadoEvent evento) {
+        if (evento.getActual() != null) {
+            indice.indexar(evento.getActual());
+        } else {
+            indice.eliminar(evento.getId());
+        }
+    }
+
+    // Cuando MotorStock retira un contador, el stock que se responde pasa a ser el guardado en el índice
+    @EventListener
+    public void alRetirarStock(StockInactivoEvent evento) {
+        indice.actualizarStock(evento.getStocks());
+    }
+}
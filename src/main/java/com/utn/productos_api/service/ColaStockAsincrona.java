@@ -0,0 +1,227 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.exception.ServicioSaturadoException;
+import com.utn.productos_api.model.Producto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Modo asíncrono de PATCH /api/productos/{id}/stock (cabecera Prefer: respond-async).
+ * El cambio se registra en un diario en disco y se aplica en MotorStock (GET /{id} ya lo ve);
+ * la respuesta sale cuando el registro está en disco (fsync), con su número de secuencia, sin esperar a la base.
+ * Los cambios de un mismo producto se agrupan (gana el último) y se vuelcan en lotes: MotorStock
+ * escribe solo el valor vigente de cada producto, en una transacción con batch de JDBC.
+ *
+ * Qué garantiza cada respuesta con el modo habilitado:
+ * - 202 (respond-async): el cambio está en el diario en disco y sobrevive a una caída del proceso o del equipo.
+ * - 200 (sincrónico, reservas, lotes): el cambio está aplicado en memoria y escrito en el diario sin esperar
+ *   el fsync; sobrevive a una caída del proceso, pero no a una del equipo antes del próximo volcado.
+ * Sin el modo habilitado, un 200 solo está en memoria hasta el próximo volcado (ver MotorStock).
+ * El 202 es la respuesta durable y con número de secuencia; el 200 es la más rápida.
+ *
+ * El diario se borra por segmentos a medida que sus cambios llegan a la base. Si la API se cae antes,
+ * al iniciar se vuelve a aplicar el último stock registrado de cada producto, antes de que el servidor web
+ * acepte peticiones: un GET o un PATCH que llegara antes vería el stock anterior a la caída.
+ * La cantidad de productos con cambios sin volcar está acotada: al llegar al límite se responde 503.
+ */
+@Service
+public class ColaStockAsincrona implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ColaStockAsincrona.class);
+
+    public static final String PREFERENCIA = "respond-async";
+    private static final String METRICA = "productos.stock.asincrono";
+    // El control de capacidad y la secuencia pendiente de cada producto se actualizan juntos
+    private static final int CERROJOS = 64;
+
+    /**
+     * Cambio aceptado: el producto (con el stock vigente en MotorStock) y su número de secuencia.
+     */
+    public record Aceptado(Producto producto, long secuencia) {
+    }
+
+    private final ProductoService productoService;
+    private final MotorStock motorStock;
+    private final boolean habilitado;
+    private final int capacidad;
+    private final DiarioStock diario;
+    private final Object[] cerrojos = new Object[CERROJOS];
+    // ID -> secuencia del último cambio aceptado que todavía puede no estar en la base
+    private final Map<Long, Long> pendientes = new ConcurrentHashMap<>();
+    private final Counter aceptados;
+    private final Counter rechazados;
+    // Lock: this. Última secuencia incluida en una rotación cuyos segmentos ya se descartaron
+    private long descartadoHasta;
+    private volatile boolean iniciado;
+
+    @Autowired
+    public ColaStockAsincrona(ProductoService productoService, MotorStock motorStock, MeterRegistry meterRegistry,
+                              @Value("${productos.stock.asincrono.habilitado:false}") boolean habilitado,
+                              @Value("${productos.stock.asincrono.capacidad:100000}") int capacidad,
+                              @Value("${productos.stock.asincrono.directorio:}") String directorio,
+                              @Value("${productos.stock.asincrono.fsync:true}") boolean fsync) {
+        this.productoService = productoService;
+        this.motorStock = motorStock;
+        this.habilitado = habilitado;
+        this.capacidad = capacidad;
+        for (int i = 0; i < CERROJOS; i++) {
+            cerrojos[i] = new Object();
+        }
+        this.diario = habilitado ? abrirDiario(directorio, fsync) : null;
+        if (diario != null) {
+            motorStock.usarDiario(diario);
+        }
+
+        this.aceptados = Counter.builder(METRICA).tag("resultado", "aceptado")
+                .description("Cambios de stock en modo asíncrono").register(meterRegistry);
+        this.rechazados = Counter.builder(METRICA).tag("resultado", "rechazado")
+                .description("Cambios de stock en modo asíncrono").register(meterRegistry);
+        Gauge.builder(METRICA + ".pendientes", pendientes, Map::size)
+                .description("Productos con cambios asíncronos que todavía no se volcaron a la base")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Indica si la petición pidió el modo asíncrono (Prefer: respond-async, RFC 7240)
+     * y este está habilitado. Si no, la preferencia se ignora y el cambio es sincrónico.
+     */
+    public boolean aplica(String prefer) {
+        if (!habilitado || prefer == null) {
+            return false;
+        }
+        for (String preferencia : prefer.split(",")) {
+            String nombre = preferencia.split("[;=]", 2)[0].trim();
+            if (nombre.equalsIgnoreCase(PREFERENCIA)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Aplica el stock en memoria, lo registra en el diario y espera a que esté en disco.
+     * Lanza 404 si el producto no existe y 503 si ya hay demasiados productos con cambios sin volcar.
+     */
+    public Aceptado aceptar(Long id, int stock) {
+        // 404 y caché: la lectura del producto se hace antes de tomar el lock
+        Producto producto = productoService.obtenerPorId(id);
+
+        long secuencia;
+        synchronized (cerrojos[Math.floorMod(Long.hashCode(id), CERROJOS)]) {
+            if (!pendientes.containsKey(id) && pendientes.size() >= capacidad) {
+                rechazados.increment();
+                throw new ServicioSaturadoException("Hay demasiados cambios de stock pendientes de guardar");
+            }
+            // MotorStock registra el cambio en el diario antes de aplicarlo; si el diario falla no se aplica
+            secuencia = productoService.actualizarStockEnDiario(id, stock);
+            pendientes.put(id, secuencia);
+        }
+        try {
+            diario.sincronizar(secuencia);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el cambio de stock en el diario", e);
+        }
+        aceptados.increment();
+        return new Aceptado(producto, secuencia);
+    }
+
+    /**
+     * Vuelca a la base los cambios aceptados y borra los segmentos del diario que ya no hacen falta.
+     * Si el volcado falla los segmentos se conservan y se reintenta en la próxima vuelta.
+     */
+    // También corre sin cambios asíncronos pendientes: los sincrónicos se registran en el mismo diario
+    @Scheduled(fixedDelayString = "${productos.stock.asincrono.intervalo-volcado-ms:200}")
+    public synchronized void procesar() {
+        if (diario == null || (pendientes.isEmpty() && diario.ultimaSecuencia() <= descartadoHasta)) {
+            return;
+        }
+        volcarYDescartar();
+    }
+
+    // Corre después de SnapshotService: si la tabla se restauró de un snapshot, el diario se aplica encima
+    @Override
+    public void start() {
+        iniciado = true;
+        if (diario == null) {
+            return;
+        }
+        Map<Long, Integer> recuperados = diario.recuperados();
+        if (!recuperados.isEmpty()) {
+            // Los productos que ya no existen se ignoran
+            Map<Long, Producto> aplicados = productoService.actualizarStockLote(recuperados);
+            log.info("Se recuperaron del diario {} cambios de stock ({} productos ya no existen)",
+                    aplicados.size(), recuperados.size() - aplicados.size());
+            recuperados.clear();
+        }
+        // También borra los segmentos anteriores que quedaron vacíos
+        synchronized (this) {
+            volcarYDescartar();
+        }
+    }
+
+    // El último volcado va en alCerrar, cuando el servidor web ya no recibe cambios
+    @Override
+    public void stop() {
+        iniciado = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return iniciado;
+    }
+
+    @Override
+    public int getPhase() {
+        return SnapshotService.FASE_RESTAURACION + 1;
+    }
+
+    @PreDestroy
+    public synchronized void alCerrar() throws IOException {
+        if (diario == null) {
+            return;
+        }
+        volcarYDescartar();
+        diario.close();
+    }
+
+    private void volcarYDescartar() {
+        try {
+            // Todo lo registrado hasta la rotación ya está en MotorStock: si el volcado termina bien, está en la base
+            DiarioStock.Rotacion rotacion = diario.rotar();
+            if (!motorStock.volcarConfirmado()) {
+                return;
+            }
+            pendientes.values().removeIf(secuencia -> secuencia <= rotacion.hasta());
+            diario.descartar(rotacion.segmentos());
+            descartadoHasta = rotacion.hasta();
+        } catch (IOException e) {
+            log.error("No se pudo rotar el diario de stock", e);
+        }
+    }
+
+    private static DiarioStock abrirDiario(String directorio, boolean fsync) {
+        if (directorio.isBlank()) {
+            throw new IllegalStateException("productos.stock.asincrono.directorio es obligatorio con el modo asíncrono habilitado");
+        }
+        try {
+            return new DiarioStock(Path.of(directorio), fsync);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el diario de stock en " + directorio, e);
+        }
+    }
+}
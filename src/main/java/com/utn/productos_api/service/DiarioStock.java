@@ -0,0 +1,230 @@
+package com.utn.productos_api.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de los cambios de stock aceptados en modo asíncrono (ColaStockAsincrona).
+ * Solo se agregan registros al final, en segmentos numerados en el orden en que se abren.
+ * Cada registro ocupa 24 bytes (secuencia, ID, stock y un CRC32): al recuperar, la lectura se corta
+ * en el primer registro incompleto o dañado (el proceso se cayó mientras lo escribía).
+ * Cada segmento empieza con un registro de inicio (ID -1) que lleva la última secuencia anterior:
+ * el segmento abierto nunca se borra, así la secuencia sigue aunque se descarten todos los cambios.
+ *
+ * El fsync es en grupo: un force cubre todo lo escrito hasta ese momento, así las peticiones
+ * que llegan juntas comparten la misma espera del disco.
+ */
+class DiarioStock implements Closeable {
+
+    private static final int TAMANIO_REGISTRO = 24;
+    private static final int TAMANIO_DATOS = 20;
+    private static final String PREFIJO = "stock-";
+    private static final String EXTENSION = ".log";
+    private static final Pattern NOMBRE_SEGMENTO = Pattern.compile(PREFIJO + "\\d{20}\\" + EXTENSION);
+    // ID del registro de inicio de segmento (los productos tienen IDs positivos)
+    private static final long ID_INICIO = -1L;
+
+    /**
+     * Segmentos cerrados en una rotación y última secuencia que contienen.
+     */
+    record Rotacion(long hasta, List<Path> segmentos) {
+    }
+
+    private final Path directorio;
+    private final boolean fsync;
+    // Último stock registrado de cada producto en los segmentos que había al abrir el diario
+    private final Map<Long, Integer> recuperados = new LinkedHashMap<>();
+    // Lock: this. Segmentos cerrados que todavía no se pueden borrar
+    private final List<Path> cerrados = new ArrayList<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(TAMANIO_REGISTRO);
+    private final CRC32 crc = new CRC32();
+    private long numeroSegmento;
+    private Path segmento;
+    private FileChannel canal;
+    private long secuencia;
+    // Última secuencia escrita (se lee sin lock desde sincronizar)
+    private volatile long escrita;
+
+    // Lock propio del fsync, para no frenar a quienes escriben mientras se espera al disco
+    private final Object sincronizacion = new Object();
+    private long sincronizada;
+
+    DiarioStock(Path directorio, boolean fsync) throws IOException {
+        this.directorio = directorio;
+        this.fsync = fsync;
+        Files.createDirectories(directorio);
+        for (Path anterior : segmentos()) {
+            leer(anterior);
+            cerrados.add(anterior);
+            numeroSegmento = numero(anterior);
+        }
+        escrita = secuencia;
+        sincronizada = secuencia;
+        abrirSegmento();
+    }
+
+    /**
+     * Último stock de cada producto según los segmentos que quedaron de una ejecución anterior.
+     */
+    Map<Long, Integer> recuperados() {
+        return recuperados;
+    }
+
+    /**
+     * Escribe un cambio y devuelve su número de secuencia. No espera al disco: ver sincronizar.
+     */
+    synchronized long agregar(long id, int stock) throws IOException {
+        long numero = secuencia + 1;
+        escribir(numero, id, stock);
+        secuencia = numero;
+        escrita = numero;
+        return numero;
+    }
+
+    /**
+     * Secuencia del último registro escrito (en disco o no).
+     */
+    long ultimaSecuencia() {
+        return escrita;
+    }
+
+    /**
+     * Espera a que el registro con la secuencia indicada esté en disco.
+     * Si otro hilo ya forzó hasta ahí no hace nada; si no, un solo force cubre también
+     * lo que escribieron los demás hilos mientras tanto.
+     */
+    void sincronizar(long hasta) throws IOException {
+        if (!fsync) {
+            return;
+        }
+        synchronized (sincronizacion) {
+            if (sincronizada >= hasta) {
+                return;
+            }
+            long objetivo = escrita;
+            FileChannel actual;
+            synchronized (this) {
+                actual = canal;
+            }
+            actual.force(false);
+            sincronizada = objetivo;
+        }
+    }
+
+    /**
+     * Cierra el segmento actual y empieza otro. Los registros hasta 'hasta' quedan en los
+     * segmentos devueltos, que se pueden borrar cuando sus cambios estén en la base.
+     */
+    Rotacion rotar() throws IOException {
+        synchronized (sincronizacion) {
+            synchronized (this) {
+                canal.force(false);
+                canal.close();
+                cerrados.add(segmento);
+                sincronizada = secuencia;
+                abrirSegmento();
+                return new Rotacion(secuencia, List.copyOf(cerrados));
+            }
+        }
+    }
+
+    synchronized void descartar(List<Path> segmentos) throws IOException {
+        for (Path descartado : segmentos) {
+            Files.deleteIfExists(descartado);
+            cerrados.remove(descartado);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        canal.force(false);
+        canal.close();
+    }
+
+    private void escribir(long numero, long id, int stock) throws IOException {
+        buffer.clear();
+        buffer.putLong(numero).putLong(id).putInt(stock);
+        crc.reset();
+        crc.update(buffer.array(), 0, TAMANIO_DATOS);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        long posicion = canal.position();
+        try {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+        } catch (IOException e) {
+            // Se quita lo que haya quedado escrito a medias, para que los próximos registros se puedan leer
+            canal.truncate(posicion);
+            throw e;
+        }
+    }
+
+    private void abrirSegmento() throws IOException {
+        numeroSegmento++;
+        segmento = directorio.resolve(String.format("%s%020d%s", PREFIJO, numeroSegmento, EXTENSION));
+        canal = FileChannel.open(segmento, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        escribir(secuencia, ID_INICIO, 0);
+        if (fsync) {
+            canal.force(false);
+        }
+    }
+
+    // El número va con ceros a la izquierda: el orden alfabético es el de apertura
+    private List<Path> segmentos() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                    .filter(archivo -> NOMBRE_SEGMENTO.matcher(archivo.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long numero(Path archivo) {
+        String nombre = archivo.getFileName().toString();
+        return Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length()));
+    }
+
+    private void leer(Path anterior) throws IOException {
+        try (FileChannel lectura = FileChannel.open(anterior, StandardOpenOption.READ)) {
+            while (true) {
+                buffer.clear();
+                while (buffer.hasRemaining() && lectura.read(buffer) >= 0) {
+                    // Sigue leyendo hasta completar el registro o llegar al final
+                }
+                if (buffer.hasRemaining()) {
+                    return;
+                }
+                crc.reset();
+                crc.update(buffer.array(), 0, TAMANIO_DATOS);
+                buffer.flip();
+                long numero = buffer.getLong();
+                long id = buffer.getLong();
+                int stock = buffer.getInt();
+                if (buffer.getInt() != (int) crc.getValue()) {
+                    return;
+                }
+                secuencia = Math.max(secuencia, numero);
+                if (id == ID_INICIO) {
+                    continue;
+                }
+                // Un cambio posterior del mismo producto reemplaza al anterior y pasa al final
+                recuperados.remove(id);
+                recuperados.put(id, stock);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.config.RuteoDataSource;
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.event.ProductoCambiadoEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * IDs y categorías escritos hace menos del doble del retraso máximo tolerado de las réplicas.
+ * Sus lecturas van a la primaria (leer lo propio escrito): una réplica al día según la última
+ * revisión todavía puede devolver el valor anterior a la escritura. Es el mismo margen con el que
+ * ProductoCacheInvalidador vuelve a desalojar la caché. Sin réplicas (retraso cero) no registra nada.
+ */
+@Component
+public class EscriturasRecientes {
+
+    private final long ventanaNanos;
+    // Clave (ID o categoría) -> instante (System.nanoTime) hasta el que se lee de la primaria
+    private final Map<Object, Long> hasta = new ConcurrentHashMap<>();
+
+    @Autowired
+    public EscriturasRecientes(@Value("${productos.replicas.retraso-maximo:0ms}") Duration retrasoReplicas) {
+        this.ventanaNanos = retrasoReplicas.multipliedBy(2).toNanos();
+    }
+
+    // Antes del commit: una lectura que llega apenas confirmado el cambio ya lo encuentra registrado.
+    // Si la transacción se revierte, la clave solo se lee de la primaria un rato de más
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoCambiadoEvent evento) {
+        // El stock no se lee de las réplicas: lo aporta MotorStock
+        if (ventanaNanos == 0 || evento.getTipo() == ProductoCambiadoEvent.Tipo.STOCK) {
+            return;
+        }
+        long vence = System.nanoTime() + ventanaNanos;
+        hasta.put(evento.getId(), vence);
+        registrarCategoria(evento.getAnterior(), vence);
+        registrarCategoria(evento.getActual(), vence);
+    }
+
+    /**
+     * Ejecuta la lectura en la primaria si la clave se escribió hace poco; si no, donde corresponda.
+     */
+    public <T> T leer(Object clave, Supplier<T> lectura) {
+        Long vence = hasta.get(clave);
+        if (vence != null && vence - System.nanoTime() > 0) {
+            return RuteoDataSource.enPrimaria(lectura);
+        }
+        return lectura.get();
+    }
+
+    // Quita las claves vencidas: el mapa solo guarda las escrituras de la última ventana
+    @Scheduled(fixedDelayString = "${productos.replicas.intervalo-revision-ms:1000}")
+    public void purgar() {
+        long ahora = System.nanoTime();
+        hasta.values().removeIf(vence -> vence - ahora <= 0);
+    }
+
+    private void registrarCategoria(ProductoResponseDTO producto, long vence) {
+        if (producto != null && producto.categoria() != null) {
+            hasta.put(producto.categoria(), vence);
+        }
+    }
+}
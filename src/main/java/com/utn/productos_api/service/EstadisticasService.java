@@ -0,0 +1,191 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.dto.EstadisticaCategoriaDTO;
+import com.utn.productos_api.dto.EstadisticasDTO;
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.dto.TotalesCategoriaDTO;
+import com.utn.productos_api.event.ProductoCambiadoEvent;
+import com.utn.productos_api.model.Categoria;
+import com.utn.productos_api.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Totales del inventario por categoría (cantidad de productos, stock y valor) mantenidos en memoria.
+ * Cada ProductoCambiadoEvent aplica la diferencia entre la foto anterior y la posterior,
+ * así que leer los totales no consulta la base sin importar el tamaño del catálogo.
+ * Periódicamente se comparan con un GROUP BY en la base para corregir cualquier desvío.
+ */
+@Service
+public class EstadisticasService {
+
+    private static final Logger log = LoggerFactory.getLogger(EstadisticasService.class);
+
+    // Si los cambios no dan tregua, después de estos intentos se reconcilia igual
+    private static final int MAXIMO_INTENTOS_RECONCILIACION = 5;
+
+    private final ProductoRepository productoRepository;
+    private final MotorStock motorStock;
+    private final Duration intervaloReconciliacion;
+
+    // Todos los accesos a los totales se hacen con el lock del servicio (son pocas sumas por cambio)
+    private final Map<Categoria, Totales> totales = new EnumMap<>(Categoria.class);
+    private long cambiosAplicados;
+    private boolean reconciliacionPendiente = true;
+    private int intentosFallidos;
+    private LocalDateTime ultimaReconciliacion;
+
+    private static class Totales {
+        long cantidadProductos;
+        long stockTotal;
+        long valorCentavos;
+    }
+
+    @Autowired
+    public EstadisticasService(ProductoRepository productoRepository, MotorStock motorStock,
+                               @Value("${productos.estadisticas.intervalo-reconciliacion:10m}") Duration intervaloReconciliacion) {
+        this.productoRepository = productoRepository;
+        this.motorStock = motorStock;
+        this.intervaloReconciliacion = intervaloReconciliacion;
+        for (Categoria categoria : Categoria.values()) {
+            totales.put(categoria, new Totales());
+        }
+    }
+
+    /**
+     * Devuelve los totales por categoría y generales. No consulta la base de datos.
+     */
+    public synchronized EstadisticasDTO obtenerEstadisticas() {
+        List<EstadisticaCategoriaDTO> categorias = new ArrayList<>();
+        long cantidad = 0;
+        long stock = 0;
+        long valor = 0;
+        for (Map.Entry<Categoria, Totales> entrada : totales.entrySet()) {
+            Totales t = entrada.getValue();
+            categorias.add(new EstadisticaCategoriaDTO(entrada.getKey(), t.cantidadProductos, t.stockTotal,
+                    BigDecimal.valueOf(t.valorCentavos, 2)));
+            cantidad += t.cantidadProductos;
+            stock += t.stockTotal;
+            valor += t.valorCentavos;
+        }
+        return new EstadisticasDTO(cantidad, stock, BigDecimal.valueOf(valor, 2), categorias, ultimaReconciliacion);
+    }
+
+    // Después del commit, igual que la caché: un cambio que se revierte no altera los totales
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void alCambiarProducto(ProductoCambiadoEvent evento) {
+        cambiosAplicados++;
+        if (evento.getTipo() == ProductoCambiadoEvent.Tipo.ELIMINADO && evento.getAnterior() == null) {
+            // Se eliminó sin foto previa (ProductoService siempre la envía): no se sabe qué restar,
+            // se corrige con la base en la próxima revisión
+            reconciliacionPendiente = true;
+            return;
+        }
+        aplicar(evento.getAnterior(), -1);
+        aplicar(evento.getActual(), 1);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        reconciliar();
+    }
+
+    /**
+     * Reconcilia cuando quedó pendiente (inicio, eliminación sin foto previa, intento anterior fallido)
+     * o cuando pasó el intervalo configurado desde la última vez.
+     */
+    @Scheduled(fixedDelayString = "${productos.estadisticas.intervalo-revision-ms:1000}")
+    public void revisar() {
+        boolean vencida;
+        synchronized (this) {
+            vencida = reconciliacionPendiente || ultimaReconciliacion == null
+                    || ultimaReconciliacion.plus(intervaloReconciliacion).isBefore(LocalDateTime.now());
+        }
+        if (vencida) {
+            reconciliar();
+        }
+    }
+
+    /**
+     * Recalcula los totales con la base de datos y los reemplaza, registrando las diferencias.
+     * Primero se vuelca el stock de MotorStock para que la base tenga los valores vigentes.
+     * Si mientras tanto llegó algún cambio el resultado ya no es exacto: se descarta y se reintenta.
+     */
+    public void reconciliar() {
+        long cambiosAntes;
+        synchronized (this) {
+            cambiosAntes = cambiosAplicados;
+        }
+        motorStock.volcar();
+        List<TotalesCategoriaDTO> enBase = productoRepository.totalesPorCategoria();
+
+        synchronized (this) {
+            if (cambiosAplicados != cambiosAntes && ++intentosFallidos < MAXIMO_INTENTOS_RECONCILIACION) {
+                reconciliacionPendiente = true;
+                return;
+            }
+            Map<Categoria, Totales> recalculados = new EnumMap<>(Categoria.class);
+            for (Categoria categoria : Categoria.values()) {
+                recalculados.put(categoria, new Totales());
+            }
+            for (TotalesCategoriaDTO fila : enBase) {
+                Totales t = recalculados.get(fila.getCategoria());
+                t.cantidadProductos = valor(fila.getCantidadProductos());
+                t.stockTotal = valor(fila.getStockTotal());
+                t.valorCentavos = valor(fila.getValorCentavos());
+            }
+            for (Map.Entry<Categoria, Totales> entrada : recalculados.entrySet()) {
+                Totales actual = totales.get(entrada.getKey());
+                Totales correcto = entrada.getValue();
+                if (actual.cantidadProductos != correcto.cantidadProductos || actual.stockTotal != correcto.stockTotal
+                        || actual.valorCentavos != correcto.valorCentavos) {
+                    if (ultimaReconciliacion != null && !reconciliacionPendiente) {
+                        log.warn("Totales de {} corregidos al reconciliar: productos {} -> {}, stock {} -> {}",
+                                entrada.getKey(), actual.cantidadProductos, correcto.cantidadProductos,
+                                actual.stockTotal, correcto.stockTotal);
+                    }
+                    totales.put(entrada.getKey(), correcto);
+                }
+            }
+            reconciliacionPendiente = false;
+            intentosFallidos = 0;
+            ultimaReconciliacion = LocalDateTime.now();
+        }
+    }
+
+    private void aplicar(ProductoResponseDTO producto, int signo) {
+        if (producto == null || producto.categoria() == null) {
+            return;
+        }
+        Totales t = totales.get(producto.categoria());
+        long stock = producto.stock() != null ? producto.stock() : 0;
+        t.cantidadProductos += signo;
+        t.stockTotal += signo * stock;
+        t.valorCentavos += signo * centavos(producto.precio()) * stock;
+    }
+
+    // Mismo redondeo que la consulta de la base (ver ProductoRepository.totalesPorCategoria)
+    private static long centavos(Double precio) {
+        return precio != null ? Math.round(precio * 100) : 0;
+    }
+
+    private static long valor(Long valor) {
+        return valor != null ? valor : 0;
+    }
+}
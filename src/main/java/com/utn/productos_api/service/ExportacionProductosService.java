@@ -0,0 +1,114 @@
+package com.utn.productos_api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Exportación del catálogo completo en CSV o NDJSON.
+ * Las filas se escriben a medida que se leen del cursor de la base (ProductoService.recorrerTodos),
+ * así la memoria usada no depende del tamaño de la tabla.
+ */
+@Service
+public class ExportacionProductosService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportacionProductosService.class);
+
+    // Cada cuántas filas se registra el avance en el log
+    private static final int FILAS_POR_AVANCE = 100_000;
+
+    // Mismas columnas que acepta la importación (el id se ignora al importar)
+    private static final CsvSchema ESQUEMA_CSV = CsvSchema.builder()
+            .addColumn("id")
+            .addColumn("nombre")
+            .addColumn("descripcion")
+            .addColumn("precio")
+            .addColumn("stock")
+            .addColumn("categoria")
+            .setUseHeader(true)
+            .build();
+
+    private final ProductoService productoService;
+    private final ProductoRepository productoRepository;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = new CsvMapper();
+
+    @Autowired
+    public ExportacionProductosService(ProductoService productoService, ProductoRepository productoRepository,
+                                       ObjectMapper objectMapper) {
+        this.productoService = productoService;
+        this.productoRepository = productoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Cantidad de productos a exportar, para que el cliente calcule el avance (cabecera X-Total-Count).
+     * Es aproximada: se cuenta antes de empezar a recorrer la tabla.
+     */
+    public long contarProductos() {
+        return productoRepository.count();
+    }
+
+    /**
+     * Escribe un ProductoResponseDTO en JSON por línea.
+     */
+    public void exportarNdjson(OutputStream salida) throws IOException {
+        // Sin flush por cada valor: el generador acumula en su buffer y escribe en bloques
+        ObjectWriter writer = objectMapper.writerFor(ProductoResponseDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        // El contenedor se encarga de cerrar la respuesta, el generador solo la vacía al final
+        try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            recorrer("NDJSON", producto -> {
+                writer.writeValue(generador, producto);
+                generador.writeRaw('\n');
+            });
+        }
+    }
+
+    /**
+     * Escribe el catálogo como CSV con encabezado (id,nombre,descripcion,precio,stock,categoria).
+     */
+    public void exportarCsv(OutputStream salida) throws IOException {
+        try (SequenceWriter filas = csvMapper.writerFor(ProductoResponseDTO.class)
+                .with(ESQUEMA_CSV)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(salida)) {
+            recorrer("CSV", filas::write);
+        }
+    }
+
+    private interface EscritorFila {
+        void escribir(ProductoResponseDTO producto) throws IOException;
+    }
+
+    private void recorrer(String formato, EscritorFila escritor) {
+        long inicio = System.nanoTime();
+        long[] filas = {0};
+        productoService.recorrerTodos(producto -> {
+            try {
+                escritor.escribir(producto);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (++filas[0] % FILAS_POR_AVANCE == 0) {
+                log.info("Exportación {}: {} productos escritos", formato, filas[0]);
+            }
+        });
+        log.info("Exportación {} terminada: {} productos en {} ms", formato, filas[0], (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
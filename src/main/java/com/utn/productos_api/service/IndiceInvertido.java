@@ -0,0 +1,224 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.dto.ProductoResponseDTO;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido en memoria sobre el nombre y la descripción de los productos.
+ * Cada término normalizado (minúsculas, sin acentos) apunta a los productos que lo contienen
+ * con un peso: las apariciones en el nombre valen más que las de la descripción.
+ * Los términos se guardan ordenados, así una búsqueda por prefijo es un rango del mapa.
+ * Las lecturas se hacen en paralelo; las modificaciones toman el lock de escritura.
+ */
+class IndiceInvertido {
+
+    private static final int PESO_NOMBRE = 4;
+    private static final int PESO_DESCRIPCION = 1;
+    // Un término idéntico al buscado puntúa el doble que uno que solo empieza igual
+    private static final int FACTOR_EXACTO = 2;
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "sin", "su", "un", "una", "y");
+
+    // término -> (id -> peso)
+    private final NavigableMap<String, Map<Long, Integer>> terminos = new TreeMap<>();
+    private final Map<Long, Documento> documentos = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record Documento(ProductoResponseDTO producto, Set<String> terminos) {
+    }
+
+    /**
+     * Resultado de una búsqueda con su puntaje de relevancia.
+     */
+    record Coincidencia(ProductoResponseDTO producto, int puntaje) {
+    }
+
+    /**
+     * Separa un texto en términos normalizados: "Cámara Réflex" -> [camara, reflex].
+     */
+    static List<String> tokenizar(String texto) {
+        List<String> tokens = new ArrayList<>();
+        if (texto == null || texto.isBlank()) {
+            return tokens;
+        }
+        String normalizado = MARCAS_DIACRITICAS
+                .matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        for (String token : SEPARADORES.split(normalizado)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Agrega o reemplaza un producto en el índice.
+     */
+    void indexar(ProductoResponseDTO producto) {
+        Map<String, Integer> pesos = new HashMap<>();
+        sumarPesos(pesos, producto.nombre(), PESO_NOMBRE);
+        sumarPesos(pesos, producto.descripcion(), PESO_DESCRIPCION);
+
+        lock.writeLock().lock();
+        try {
+            quitarTerminos(producto.id());
+            pesos.forEach((termino, peso) ->
+                    terminos.computeIfAbsent(termino, t -> new HashMap<>()).put(producto.id(), peso));
+            documentos.put(producto.id(), new Documento(producto, pesos.keySet()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void eliminar(Long id) {
+        lock.writeLock().lock();
+        try {
+            quitarTerminos(id);
+            documentos.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reemplaza el stock guardado de los productos indicados, sin volver a calcular sus términos.
+     * Los que no están en el índice se ignoran.
+     */
+    void actualizarStock(Map<Long, Integer> stocks) {
+        lock.writeLock().lock();
+        try {
+            stocks.forEach((id, stock) -> documentos.computeIfPresent(id, (clave, documento) ->
+                    new Documento(documento.producto().conStock(stock), documento.terminos())));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean contiene(Long id) {
+        lock.readLock().lock();
+        try {
+            return documentos.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int tamanio() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los productos que contienen todos los términos de la consulta, cada uno como
+     * palabra completa o como prefijo (para autocompletar mientras se escribe).
+     * Se ordenan por puntaje descendente y, a igual puntaje, por ID.
+     */
+    List<Coincidencia> buscar(String consulta, int limite) {
+        List<String> tokens = terminosDeConsulta(consulta);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> puntajes = null;
+            for (String token : tokens) {
+                Map<Long, Integer> delToken = puntajesDeToken(token);
+                if (puntajes == null) {
+                    puntajes = delToken;
+                } else {
+                    // Todos los términos tienen que aparecer: se conserva la intersección
+                    Map<Long, Integer> acumulados = puntajes;
+                    puntajes = new HashMap<>();
+                    for (Map.Entry<Long, Integer> entrada : delToken.entrySet()) {
+                        Integer previo = acumulados.get(entrada.getKey());
+                        if (previo != null) {
+                            puntajes.put(entrada.getKey(), previo + entrada.getValue());
+                        }
+                    }
+                }
+                if (puntajes.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Coincidencia> coincidencias = new ArrayList<>(puntajes.size());
+            puntajes.forEach((id, puntaje) -> coincidencias.add(new Coincidencia(documentos.get(id).producto(), puntaje)));
+            coincidencias.sort(Comparator.comparingInt(Coincidencia::puntaje).reversed()
+                    .thenComparing(c -> c.producto().id()));
+            return coincidencias.size() > limite ? new ArrayList<>(coincidencias.subList(0, limite)) : coincidencias;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Para cada producto, el mejor puntaje entre los términos que empiezan con el token
+    private Map<Long, Integer> puntajesDeToken(String token) {
+        Map<Long, Integer> puntajes = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Integer>> termino : terminos.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            int factor = termino.getKey().equals(token) ? FACTOR_EXACTO : 1;
+            termino.getValue().forEach((id, peso) -> puntajes.merge(id, peso * factor, Math::max));
+        }
+        return puntajes;
+    }
+
+    // Las palabras vacías se descartan, salvo la última: puede ser el comienzo de otra palabra ("de" -> "deportes")
+    private static List<String> terminosDeConsulta(String consulta) {
+        List<String> tokens = tokenizar(consulta);
+        Set<String> resultado = new LinkedHashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i == tokens.size() - 1 || !PALABRAS_VACIAS.contains(tokens.get(i))) {
+                resultado.add(tokens.get(i));
+            }
+        }
+        return new ArrayList<>(resultado);
+    }
+
+    private static void sumarPesos(Map<String, Integer> pesos, String texto, int peso) {
+        for (String token : tokenizar(texto)) {
+            if (!PALABRAS_VACIAS.contains(token)) {
+                pesos.merge(token, peso, Integer::sum);
+            }
+        }
+    }
+
+    private void quitarTerminos(Long id) {
+        Documento anterior = documentos.get(id);
+        if (anterior == null) {
+            return;
+        }
+        for (String termino : anterior.terminos()) {
+            Map<Long, Integer> productos = terminos.get(termino);
+            if (productos != null) {
+                productos.remove(id);
+                if (productos.isEmpty()) {
+                    terminos.remove(termino);
+                }
+            }
+        }
+    }
+}
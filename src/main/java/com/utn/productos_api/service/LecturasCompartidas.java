@@ -0,0 +1,147 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Lecturas "single-flight" delante de las cachés: si llegan muchas peticiones por la misma clave
+ * y no está en caché, solo la primera (la líder) consulta la base; las demás esperan ese mismo
+ * resultado (o la misma excepción, ej. 404) en lugar de repetir la consulta.
+ *
+ * Cada clave en vuelo lleva una marca de invalidación: si el producto cambia mientras se consulta,
+ * el resultado se entrega a quienes lo esperaban pero no queda en la caché.
+ * Las que esperan lo hacen con un tiempo máximo; si la líder no termina a tiempo reciben 503.
+ */
+@Component
+public class LecturasCompartidas {
+
+    private static final String METRICA = "productos.lecturas.compartidas";
+
+    private final ConcurrentHashMap<Clave, Vuelo> enVuelo = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public LecturasCompartidas(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("productos.lecturas.en.vuelo", enVuelo, ConcurrentHashMap::size)
+                .description("Claves que se están consultando en la base en este momento")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve el valor en caché o lo carga compartiendo la consulta con las peticiones
+     * concurrentes por la misma clave. El loader puede lanzar excepciones de dominio:
+     * todas las que esperaban reciben la misma.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T leer(Cache cache, Object clave, Duration esperaMaxima, Supplier<T> loader) {
+        Cache.ValueWrapper enCache = cache.get(clave);
+        if (enCache != null) {
+            return (T) enCache.get();
+        }
+
+        Clave claveVuelo = new Clave(cache.getName(), clave);
+        Vuelo nuevo = new Vuelo();
+        Vuelo existente = enVuelo.putIfAbsent(claveVuelo, nuevo);
+        if (existente != null) {
+            return (T) esperar(cache.getName(), existente, esperaMaxima);
+        }
+
+        contador(cache.getName(), "lider").increment();
+        try {
+            T valor = loader.get();
+            cache.put(clave, valor);
+            // Se revisa después del put: si hubo una invalidación en el medio, el valor se saca
+            // (ProductoCacheInvalidador marca el vuelo antes de desalojar la caché)
+            if (nuevo.invalidado) {
+                cache.evict(clave);
+            }
+            nuevo.resultado.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error e) {
+            nuevo.resultado.completeExceptionally(e);
+            throw e;
+        } finally {
+            enVuelo.remove(claveVuelo, nuevo);
+        }
+    }
+
+    /**
+     * Marca como invalidada la lectura en vuelo de la clave (si hay una) y la saca del mapa:
+     * las peticiones que lleguen desde ahora hacen una consulta nueva.
+     * Se llama antes de desalojar la clave de la caché.
+     */
+    public void invalidar(Cache cache, Object clave) {
+        Vuelo vuelo = enVuelo.remove(new Clave(cache.getName(), clave));
+        if (vuelo != null) {
+            vuelo.invalidado = true;
+        }
+    }
+
+    /**
+     * Igual que invalidar, para todas las claves en vuelo de la caché.
+     */
+    public void invalidarTodo(Cache cache) {
+        enVuelo.entrySet().removeIf(entrada -> {
+            if (entrada.getKey().cache().equals(cache.getName())) {
+                entrada.getValue().invalidado = true;
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private Object esperar(String cache, Vuelo vuelo, Duration esperaMaxima) {
+        try {
+            Object valor = vuelo.resultado.get(esperaMaxima.toNanos(), TimeUnit.NANOSECONDS);
+            contador(cache, "compartida").increment();
+            return valor;
+        } catch (ExecutionException e) {
+            contador(cache, "compartida").increment();
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (causa instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(causa);
+        } catch (TimeoutException e) {
+            contador(cache, "tiempo_agotado").increment();
+            throw new ServicioSaturadoException("La consulta tardó demasiado, intente nuevamente");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServicioSaturadoException("La consulta fue interrumpida, intente nuevamente");
+        }
+    }
+
+    // Los contadores se registran una vez; después el registro devuelve el mismo
+    private Counter contador(String cache, String resultado) {
+        return Counter.builder(METRICA)
+                .description("Lecturas que fueron a la base (lider), que reutilizaron una consulta en vuelo (compartida) o que no esperaron a tiempo")
+                .tag("cache", cache)
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    private record Clave(String cache, Object clave) {
+    }
+
+    private static final class Vuelo {
+        private final CompletableFuture<Object> resultado = new CompletableFuture<>();
+        private volatile boolean invalidado;
+    }
+}
@@ -0,0 +1,448 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.event.ProductoCambiadoEvent;
+import com.utn.productos_api.event.StockInactivoEvent;
+import com.utn.productos_api.exception.PrecondicionFallidaException;
+import com.utn.productos_api.exception.ProductoNotFoundException;
+import com.utn.productos_api.exception.StockInsuficienteException;
+import com.utn.productos_api.model.Producto;
+import com.utn.productos_api.repository.ProductoRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Motor de stock en memoria.
+ * Cada producto tocado tiene un contador atómico que es la fuente de verdad de su stock:
+ * las operaciones se resuelven con compare-and-set, sin lecturas previas a la base,
+ * y los cambios se vuelcan a la columna Producto.stock en segundo plano (write-behind).
+ * Los cambios de un mismo producto se aplican y se avisan bajo un lock por producto (ver cambiar):
+ * quien recibe los avisos los ve en el mismo orden en que cambió el contador.
+ * Dentro de una misma instancia no se pierden actualizaciones concurrentes; con varias
+ * instancias de la API cada una tendría su propio contador.
+ *
+ * Garantía: las operaciones responden con el cambio aplicado en memoria, antes de que llegue a la base.
+ * Al apagar la aplicación se vuelca todo lo pendiente (alCerrar), pero si el proceso se cae se pierden
+ * los cambios de hasta un intervalo de volcado (productos.stock.intervalo-volcado-ms). Quien necesite
+ * que un cambio sobreviva a una caída tiene que habilitar el modo asíncrono, que los registra en un diario.
+ *
+ * Los contadores ya volcados y sin uso durante productos.stock.desalojo.inactividad se retiran,
+ * así la memoria depende de los productos activos y no de todos los que se tocaron alguna vez.
+ * Un contador se retira con compare-and-set a RETIRADO: la operación que lo encuentra así
+ * lo vuelve a cargar de la base, donde ya está su último valor.
+ *
+ * Con el modo asíncrono habilitado (ColaStockAsincrona) todos los cambios, no solo los asíncronos,
+ * se registran en su diario antes de aplicarse: ver usarDiario.
+ */
+@Component
+public class MotorStock {
+
+    private static final Logger log = LoggerFactory.getLogger(MotorStock.class);
+
+    private static final String SQL_ACTUALIZAR_STOCK = "UPDATE producto SET stock = ? WHERE id = ?";
+    private static final int TAMANIO_LOTE = 500;
+    // El stock nunca es negativo: este valor marca un contador que ya no está en el mapa
+    private static final int RETIRADO = Integer.MIN_VALUE;
+    // Cambios del mismo producto en orden: el cambio y su aviso se hacen bajo el mismo lock
+    private static final int CERROJOS = 64;
+
+    /**
+     * Contador de un producto. ultimoUso se escribe antes de cada compare-and-set: quien lee
+     * el valor resultante ve también ese instante, así no se retira un contador recién cambiado.
+     */
+    private static final class Contador extends AtomicInteger {
+        private volatile long ultimoUso = System.nanoTime();
+
+        private Contador(int stock) {
+            super(stock);
+        }
+    }
+
+    private final Map<Long, Contador> contadores = new ConcurrentHashMap<>();
+    // IDs cuyo contador cambió desde el último volcado
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+    private final ProductoRepository productoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long inactividadNanos;
+    private final Object[] cerrojos = new Object[CERROJOS];
+    // Diario del modo asíncrono; null si está deshabilitado
+    private volatile DiarioStock diario;
+
+    @Autowired
+    public MotorStock(ProductoRepository productoRepository, JdbcTemplate jdbcTemplate,
+                      TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                      @Value("${productos.stock.desalojo.inactividad:10m}") Duration inactividad,
+                      @Value("${productos.stock.intervalo-volcado-ms:200}") long intervaloVolcadoMs,
+                      @Value("${productos.cache.por-id.ttl:5m}") Duration ttlPorId,
+                      @Value("${productos.cache.por-categoria.ttl:1m}") Duration ttlPorCategoria) {
+        // Al retirar un contador vuelve a valer el stock de las copias en caché. Una copia leída justo
+        // antes del volcado del último cambio tiene el valor anterior; tiene que vencer antes del retiro
+        Duration ttlMaximo = ttlPorId.compareTo(ttlPorCategoria) > 0 ? ttlPorId : ttlPorCategoria;
+        Duration margen = ttlMaximo.plusMillis(intervaloVolcadoMs);
+        if (inactividad.compareTo(margen) <= 0) {
+            throw new IllegalStateException("productos.stock.desalojo.inactividad debe ser mayor que el TTL de la caché de productos más el intervalo de volcado ("
+                    + margen + ")");
+        }
+        this.productoRepository = productoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.inactividadNanos = inactividad.toNanos();
+        for (int i = 0; i < CERROJOS; i++) {
+            cerrojos[i] = new Object();
+        }
+    }
+
+    /**
+     * Resultado de una operación: el stock antes y después del cambio.
+     */
+    @lombok.Value
+    public static class CambioStock {
+        int anterior;
+        int actual;
+        // Secuencia del registro en el diario del modo asíncrono (0 si está deshabilitado)
+        long secuencia;
+    }
+
+    /**
+     * Registra en el diario del modo asíncrono todos los cambios de stock (PATCH sincrónico,
+     * reservas, lotes y PUT), no solo los aceptados con Prefer: respond-async.
+     * Al recuperar se aplica el último valor registrado de cada producto: si un cambio que no pasara
+     * por el diario llegara a la base con un volcado, y la API se cayera antes de descartar el diario,
+     * la recuperación lo pisaría con un valor anterior.
+     * Cada cambio se calcula, se registra y se aplica bajo el lock del diario: el volcado nunca ve
+     * un valor que no esté registrado y una rotación nunca queda entre el registro y el cambio.
+     */
+    void usarDiario(DiarioStock diario) {
+        this.diario = diario;
+    }
+
+    /**
+     * Devuelve el stock vigente: el del contador si el producto está en memoria,
+     * o el leído de la base en caso contrario.
+     */
+    public Integer stockVigente(Long id, Integer stockPersistido) {
+        Contador contador = contadores.get(id);
+        if (contador == null) {
+            return stockPersistido;
+        }
+        int stock = contador.get();
+        return stock != RETIRADO ? stock : stockPersistido;
+    }
+
+    /**
+     * Empieza a seguir productos ya leídos de la base, sin volver a consultarlos.
+     * Los que ya tienen contador conservan su valor en memoria.
+     */
+    public void cargar(Collection<Producto> productos) {
+        for (Producto producto : productos) {
+            Contador existente = contadores.putIfAbsent(producto.getId(), new Contador(producto.getStock()));
+            if (existente != null && existente.get() == RETIRADO) {
+                // Lo están retirando: se reemplaza por uno nuevo con el stock leído
+                contadores.remove(producto.getId(), existente);
+                contadores.putIfAbsent(producto.getId(), new Contador(producto.getStock()));
+            }
+        }
+    }
+
+    /**
+     * Fija el stock a un valor absoluto (PATCH /{id}/stock).
+     * alAplicar recibe el cambio antes de que otro cambio del mismo producto se aplique.
+     */
+    public CambioStock establecer(Long id, int nuevoStock, Consumer<CambioStock> alAplicar) {
+        return cambiar(id, actual -> nuevoStock, alAplicar);
+    }
+
+    /**
+     * Fija el stock solo si el valor actual es el esperado (If-Match sobre PATCH /{id}/stock).
+     * Lanza 412 si otro cambio se adelantó.
+     */
+    public CambioStock establecerSi(Long id, int stockEsperado, int nuevoStock, Consumer<CambioStock> alAplicar) {
+        return cambiar(id, actual -> {
+            if (actual != stockEsperado) {
+                throw new PrecondicionFallidaException("El producto con ID: " + id + " fue modificado por otra petición");
+            }
+            return nuevoStock;
+        }, alAplicar);
+    }
+
+    /**
+     * Descuenta unidades solo si hay stock suficiente. Nunca deja el stock negativo.
+     */
+    public CambioStock reservar(Long id, int cantidad, Consumer<CambioStock> alAplicar) {
+        return cambiar(id, actual -> {
+            if (actual < cantidad) {
+                throw new StockInsuficienteException("Stock insuficiente para el producto con ID: " + id
+                        + " (disponible: " + actual + ", solicitado: " + cantidad + ")");
+            }
+            return actual - cantidad;
+        }, alAplicar);
+    }
+
+    /**
+     * Devuelve al stock unidades reservadas previamente.
+     */
+    public CambioStock liberar(Long id, int cantidad, Consumer<CambioStock> alAplicar) {
+        return cambiar(id, actual -> Math.addExact(actual, cantidad), alAplicar);
+    }
+
+    /**
+     * Sincroniza los contadores con los cambios confirmados por otros caminos:
+     * un PUT del producto completo reemplaza el stock y un DELETE deja de seguir el producto.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoCambiadoEvent evento) {
+        if (evento.getTipo() == ProductoCambiadoEvent.Tipo.ACTUALIZADO) {
+            alPersistir(evento.getId(), evento.getActual().stock());
+        } else if (evento.getTipo() == ProductoCambiadoEvent.Tipo.ELIMINADO) {
+            olvidar(evento.getId());
+        }
+    }
+
+    /**
+     * Avisa que el stock se escribió por otro camino (ej. PUT del producto completo).
+     * Si el producto está en memoria se actualiza el contador y se vuelve a marcar como pendiente,
+     * así un volcado concurrente no deja en la base un valor anterior.
+     * Si no lo está, empieza a seguirse con ese stock: con réplicas de lectura, cargarlo más tarde
+     * desde una réplica atrasada podría traer el stock anterior al cambio.
+     */
+    public void alPersistir(Long id, int stock) {
+        while (true) {
+            Contador contador = contadores.putIfAbsent(id, new Contador(stock));
+            if (contador == null) {
+                // El stock del PUT ya está en la base y, con diario, también registrado (ver antesDeConfirmar)
+                return;
+            }
+            contador.ultimoUso = System.nanoTime();
+            if (contador.get() == RETIRADO) {
+                contadores.remove(id, contador);
+            } else if (aplicar(id, contador, actual -> stock) != null) {
+                pendientes.add(id);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Con el modo asíncrono, el stock de un PUT se registra en el diario antes del commit: si la API
+     * se cae después del commit y antes de alPersistir, la recuperación no lo pisa con un cambio anterior.
+     * Si el registro falla, el PUT se revierte.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void antesDeConfirmar(ProductoCambiadoEvent evento) {
+        DiarioStock diario = this.diario;
+        if (diario != null && evento.getTipo() == ProductoCambiadoEvent.Tipo.ACTUALIZADO) {
+            registrar(diario, evento.getId(), evento.getActual().stock());
+        }
+    }
+
+    // Si el commit falla después de registrar el PUT, se registra otra vez el stock vigente
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void alRevertir(ProductoCambiadoEvent evento) {
+        DiarioStock diario = this.diario;
+        if (diario != null && evento.getTipo() == ProductoCambiadoEvent.Tipo.ACTUALIZADO) {
+            synchronized (diario) {
+                registrar(diario, evento.getId(), stockVigente(evento.getId(), evento.getAnterior().stock()));
+            }
+        }
+    }
+
+    /**
+     * Deja de seguir un producto (por ejemplo, porque se eliminó).
+     */
+    public void olvidar(Long id) {
+        contadores.remove(id);
+        pendientes.remove(id);
+    }
+
+    /**
+     * Vuelca a la base los contadores modificados, en una transacción y con batch de JDBC.
+     * Si dos cambios del mismo producto llegan entre volcados, solo se escribe el último valor.
+     */
+    // synchronized: además del volcado programado lo llaman los lotes y las estadísticas,
+    // y dos volcados en paralelo podrían escribir los valores de un mismo producto en desorden
+    @Scheduled(fixedDelayString = "${productos.stock.intervalo-volcado-ms:200}")
+    public synchronized void volcar() {
+        volcarConfirmado();
+    }
+
+    /**
+     * Igual que volcar, pero informa si todos los cambios anteriores a la llamada quedaron en la base
+     * (ColaStockAsincrona lo usa para saber cuándo puede descartar su diario).
+     */
+    public synchronized boolean volcarConfirmado() {
+        if (pendientes.isEmpty()) {
+            return true;
+        }
+
+        List<Long> ids = new ArrayList<>();
+        List<Object[]> filas = new ArrayList<>();
+        for (Iterator<Long> it = pendientes.iterator(); it.hasNext(); ) {
+            Long id = it.next();
+            // Se quita antes de leer el valor: un cambio posterior lo vuelve a marcar
+            it.remove();
+            Contador contador = contadores.get(id);
+            int stock = contador != null ? contador.get() : RETIRADO;
+            if (stock != RETIRADO) {
+                ids.add(id);
+                filas.add(new Object[]{stock, id});
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(estado ->
+                    jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_STOCK, filas, TAMANIO_LOTE, (ps, fila) -> {
+                        ps.setInt(1, (Integer) fila[0]);
+                        ps.setLong(2, (Long) fila[1]);
+                    }));
+            return true;
+        } catch (RuntimeException e) {
+            // Se reintenta en el próximo volcado
+            pendientes.addAll(ids);
+            log.error("No se pudo volcar el stock de {} productos", ids.size(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Retira los contadores que no cambiaron durante el tiempo de inactividad y ya están en la base.
+     * Antes de retirarlos publica su stock (StockInactivoEvent) para que las copias lo tengan al día.
+     * Si el contador cambia entre la revisión y el retiro, el compare-and-set falla y se conserva.
+     */
+    // synchronized con el volcado: un contador se retira solo si ningún volcado lo está escribiendo
+    @Scheduled(fixedDelayString = "${productos.stock.desalojo.intervalo-ms:60000}")
+    public synchronized void desalojarInactivos() {
+        long ahora = System.nanoTime();
+        Map<Long, Contador> inactivos = new HashMap<>();
+        Map<Long, Integer> stocks = new HashMap<>();
+        contadores.forEach((id, contador) -> {
+            // Primero el valor: si lo dejó un cambio reciente, ultimoUso ya muestra ese cambio
+            int stock = contador.get();
+            if (stock != RETIRADO && ahora - contador.ultimoUso >= inactividadNanos && !pendientes.contains(id)) {
+                inactivos.put(id, contador);
+                stocks.put(id, stock);
+            }
+        });
+        if (inactivos.isEmpty()) {
+            return;
+        }
+
+        eventPublisher.publishEvent(new StockInactivoEvent(stocks));
+        int retirados = 0;
+        for (Map.Entry<Long, Contador> inactivo : inactivos.entrySet()) {
+            Contador contador = inactivo.getValue();
+            if (contador.compareAndSet(stocks.get(inactivo.getKey()), RETIRADO)) {
+                contadores.remove(inactivo.getKey(), contador);
+                retirados++;
+            }
+        }
+        log.debug("Se retiraron {} contadores de stock inactivos", retirados);
+    }
+
+    @PreDestroy
+    public void alCerrar() {
+        volcar();
+    }
+
+    /**
+     * Aplica el cálculo al stock actual, marca el producto como pendiente de volcar y avisa el cambio,
+     * todo bajo el lock del producto. Sin el lock, dos cambios del mismo producto podían avisarse
+     * en el orden inverso al del compare-and-set, y el registro de cambios quedarse con el stock anterior.
+     * El compare-and-set sigue haciendo falta: el retiro de contadores no toma este lock.
+     */
+    private CambioStock cambiar(Long id, IntUnaryOperator calculo, Consumer<CambioStock> alAplicar) {
+        synchronized (cerrojos[Math.floorMod(Long.hashCode(id), CERROJOS)]) {
+            while (true) {
+                CambioStock cambio = aplicar(id, contador(id), calculo);
+                if (cambio != null) {
+                    pendientes.add(id);
+                    alAplicar.accept(cambio);
+                    return cambio;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sin diario, compare-and-set sobre el contador. Con diario, bajo su lock: el valor nuevo
+     * se registra y recién después se aplica (ver usarDiario).
+     * Retorna null si hay que reintentar: otro cambio se adelantó o el contador se retiró.
+     */
+    private CambioStock aplicar(Long id, Contador contador, IntUnaryOperator calculo) {
+        DiarioStock diario = this.diario;
+        if (diario == null) {
+            int actual = contador.get();
+            if (actual == RETIRADO) {
+                return null;
+            }
+            int nuevo = calculo.applyAsInt(actual);
+            return contador.compareAndSet(actual, nuevo) ? new CambioStock(actual, nuevo, 0) : null;
+        }
+        synchronized (diario) {
+            int actual = contador.get();
+            if (actual == RETIRADO) {
+                return null;
+            }
+            int nuevo = calculo.applyAsInt(actual);
+            long secuencia = registrar(diario, id, nuevo);
+            // Bajo el lock del diario solo falla si el contador se retiró en el medio. Al reintentar se recarga
+            // el mismo stock de la base y se registra el mismo valor; si la API se cae antes, el registro
+            // de más es el de un cambio en curso, igual que si se cortara antes de responder
+            return contador.compareAndSet(actual, nuevo) ? new CambioStock(actual, nuevo, secuencia) : null;
+        }
+    }
+
+    private static long registrar(DiarioStock diario, Long id, int stock) {
+        try {
+            return diario.agregar(id, stock);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el cambio de stock en el diario", e);
+        }
+    }
+
+    // Devuelve el contador del producto con el uso ya registrado, cargándolo si hace falta
+    private Contador contador(Long id) {
+        Contador contador = contadores.get(id);
+        if (contador != null && contador.get() == RETIRADO) {
+            contadores.remove(id, contador);
+            contador = null;
+        }
+        if (contador == null) {
+            // Primera vez que se toca el producto (o se retiró): se carga su stock (solo esa columna)
+            Integer stock = productoRepository.findStockById(id)
+                    .orElseThrow(() -> new ProductoNotFoundException(id));
+            Contador nuevo = new Contador(stock);
+            Contador existente = contadores.putIfAbsent(id, nuevo);
+            contador = existente != null ? existente : nuevo;
+        }
+        contador.ultimoUso = System.nanoTime();
+        return contador;
+    }
+}
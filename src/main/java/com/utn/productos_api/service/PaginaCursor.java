@@ -0,0 +1,17 @@
+package com.utn.productos_api.service;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Resultado de una consulta paginada por cursor.
+ * siguienteCursor es null cuando no quedan más elementos.
+ */
+@Value
+public class PaginaCursor<T> {
+
+    List<T> elementos;
+
+    Long siguienteCursor;
+}
@@ -0,0 +1,81 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.config.CacheConfig;
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.event.ProductoCambiadoEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Invalida las entradas de caché afectadas por cada cambio de producto.
+ * Solo se desaloja el ID modificado y las categorías involucradas (la anterior y la nueva),
+ * el resto de la caché sigue siendo válida.
+ * Antes de desalojar se invalidan las lecturas en vuelo de esas claves, para que una consulta
+ * que empezó antes del cambio no deje su resultado en la caché.
+ * Con réplicas de lectura las mismas claves se desalojan otra vez pasado el retraso máximo
+ * tolerado: una lectura hecha en ese intervalo pudo cachear el valor viejo de una réplica.
+ */
+@Component
+public class ProductoCacheInvalidador {
+
+    private final Cache cacheProductos;
+    private final Cache cachePorCategoria;
+    private final LecturasCompartidas lecturasCompartidas;
+    private final TaskScheduler taskScheduler;
+    // Cero (sin réplicas): no hace falta el segundo desalojo
+    private final Duration retrasoReplicas;
+
+    @Autowired
+    public ProductoCacheInvalidador(CacheManager cacheManager, LecturasCompartidas lecturasCompartidas,
+                                    TaskScheduler taskScheduler,
+                                    @Value("${productos.replicas.retraso-maximo:0ms}") Duration retrasoReplicas) {
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.taskScheduler = taskScheduler;
+        this.retrasoReplicas = retrasoReplicas;
+        this.cacheProductos = cacheManager.getCache(CacheConfig.CACHE_PRODUCTOS);
+        this.cachePorCategoria = cacheManager.getCache(CacheConfig.CACHE_PRODUCTOS_POR_CATEGORIA);
+    }
+
+    // Se ejecuta después del commit (o en el momento, si el cambio no corre dentro de una transacción)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoCambiadoEvent evento) {
+        // El stock vigente lo aporta MotorStock al convertir, no hace falta recargar el producto
+        if (evento.getTipo() == ProductoCambiadoEvent.Tipo.STOCK) {
+            return;
+        }
+        desalojar(evento);
+        if (!retrasoReplicas.isZero()) {
+            // Un poco más que el retraso máximo, para cubrir también el intervalo entre revisiones
+            taskScheduler.schedule(() -> desalojar(evento), Instant.now().plus(retrasoReplicas.multipliedBy(2)));
+        }
+    }
+
+    private void desalojar(ProductoCambiadoEvent evento) {
+        lecturasCompartidas.invalidar(cacheProductos, evento.getId());
+        cacheProductos.evict(evento.getId());
+        if (evento.getAnterior() == null && evento.getActual() == null) {
+            // Eliminación sin foto previa: no se sabe la categoría, se desalojan todas (son pocas)
+            lecturasCompartidas.invalidarTodo(cachePorCategoria);
+            cachePorCategoria.clear();
+            return;
+        }
+        desalojarCategoria(evento.getAnterior());
+        desalojarCategoria(evento.getActual());
+    }
+
+    private void desalojarCategoria(ProductoResponseDTO producto) {
+        if (producto != null && producto.categoria() != null) {
+            lecturasCompartidas.invalidar(cachePorCategoria, producto.categoria());
+            cachePorCategoria.evict(producto.categoria());
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.utn.productos_api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.utn.productos_api.dto.ActualizacionStockLoteDTO;
+import com.utn.productos_api.dto.ProductoDTO;
+import com.utn.productos_api.dto.ProgresoImportacionDTO;
+import com.utn.productos_api.dto.ResultadoLoteDTO;
+import com.utn.productos_api.exception.SolicitudInvalidaException;
+import com.utn.productos_api.model.Categoria;
+import com.utn.productos_api.model.Producto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Operaciones por lotes sobre productos.
+ * Cada elemento se valida por separado (un error no invalida el resto del lote)
+ * y los elementos válidos se persisten en bloques, cada uno en su propia transacción.
+ */
+@Service
+public class ProductoLoteService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductoLoteService.class);
+
+    private final ProductoService productoService;
+    private final MotorStock motorStock;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = new CsvMapper();
+    private final int maximoElementos;
+    private final int tamanioBloque;
+
+    @Autowired
+    public ProductoLoteService(ProductoService productoService, MotorStock motorStock, Validator validator,
+                               ObjectMapper objectMapper,
+                               @Value("${productos.lote.maximo-elementos:10000}") int maximoElementos,
+                               @Value("${productos.lote.tamanio-bloque:500}") int tamanioBloque) {
+        this.productoService = productoService;
+        this.motorStock = motorStock;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.maximoElementos = maximoElementos;
+        this.tamanioBloque = tamanioBloque;
+    }
+
+    /**
+     * Valida, convierte y crea los productos recibidos.
+     * Retorna un resultado por elemento, en el mismo orden que la entrada.
+     */
+    public List<ResultadoLoteDTO> crearProductos(List<ProductoDTO> productos) {
+        verificarTamanio(productos);
+        ResultadoLoteDTO[] resultados = new ResultadoLoteDTO[productos.size()];
+
+        List<Producto> bloque = new ArrayList<>(tamanioBloque);
+        List<Integer> indices = new ArrayList<>(tamanioBloque);
+        for (int i = 0; i < productos.size(); i++) {
+            ProductoDTO dto = productos.get(i);
+            Map<String, String> errores = validar(dto);
+            if (!errores.isEmpty()) {
+                resultados[i] = ResultadoLoteDTO.error(i, null, "Error de validación", errores);
+                continue;
+            }
+            bloque.add(productoService.convertirAProducto(dto));
+            indices.add(i);
+            if (bloque.size() == tamanioBloque) {
+                persistirBloque(bloque, indices, resultados);
+                bloque = new ArrayList<>(tamanioBloque);
+                indices = new ArrayList<>(tamanioBloque);
+            }
+        }
+        if (!bloque.isEmpty()) {
+            persistirBloque(bloque, indices, resultados);
+        }
+        return Arrays.asList(resultados);
+    }
+
+    /**
+     * Valida y aplica los cambios de stock recibidos.
+     * Al terminar se vuelca el stock a la base, así el lote queda persistido al responder.
+     */
+    public List<ResultadoLoteDTO> actualizarStock(List<ActualizacionStockLoteDTO> cambios) {
+        verificarTamanio(cambios);
+        ResultadoLoteDTO[] resultados = new ResultadoLoteDTO[cambios.size()];
+
+        Map<Long, Integer> bloque = new HashMap<>();
+        List<Integer> indices = new ArrayList<>(tamanioBloque);
+        for (int i = 0; i < cambios.size(); i++) {
+            ActualizacionStockLoteDTO cambio = cambios.get(i);
+            Map<String, String> errores = validar(cambio);
+            if (!errores.isEmpty()) {
+                resultados[i] = ResultadoLoteDTO.error(i, cambio != null ? cambio.getId() : null, "Error de validación", errores);
+                continue;
+            }
+            // Si el mismo ID se repite dentro del bloque, se aplica primero lo acumulado
+            if (bloque.containsKey(cambio.getId()) || bloque.size() == tamanioBloque) {
+                aplicarStock(bloque, indices, cambios, resultados);
+                bloque = new HashMap<>();
+                indices = new ArrayList<>(tamanioBloque);
+            }
+            bloque.put(cambio.getId(), cambio.getStock());
+            indices.add(i);
+        }
+        if (!bloque.isEmpty()) {
+            aplicarStock(bloque, indices, cambios, resultados);
+        }
+        motorStock.volcar();
+        return Arrays.asList(resultados);
+    }
+
+    /**
+     * Formatos de archivo que acepta la importación.
+     */
+    public enum FormatoImportacion {
+        // Con encabezado: nombre,descripcion,precio,stock,categoria (otras columnas, como id, se ignoran)
+        CSV,
+        // Un ProductoDTO en JSON por línea
+        NDJSON
+    }
+
+    /**
+     * Importa productos leídos en streaming, sin límite de tamaño: la memoria usada depende
+     * del tamaño del bloque y no del archivo.
+     * Cada línea se valida como ProductoDTO y las válidas se guardan en bloques de tamanioBloque,
+     * cada uno en su transacción. Mientras un bloque se guarda en otro hilo se lee y valida el siguiente.
+     * Por la salida se informa cada línea con error, el avance después de cada bloque guardado y un resumen final.
+     */
+    public void importar(InputStream entrada, FormatoImportacion formato,
+                         Consumer<ProgresoImportacionDTO> salida) throws IOException {
+        BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        Contadores contadores = new Contadores();
+        ExecutorService persistencia = Executors.newSingleThreadExecutor(r -> new Thread(r, "importacion-productos"));
+        try {
+            BloqueEnCurso enCurso = null;
+            List<Producto> bloque = new ArrayList<>(tamanioBloque);
+            List<Long> lineas = new ArrayList<>(tamanioBloque);
+
+            try (LectorLineas lineasLeidas = formato == FormatoImportacion.CSV ? lectorCsv(lector) : lectorNdjson(lector)) {
+                LineaImportada linea;
+                while ((linea = lineasLeidas.siguiente()) != null) {
+                    contadores.procesadas++;
+                    if (linea.mensaje() != null || !linea.errores().isEmpty()) {
+                        contadores.errores++;
+                        salida.accept(ProgresoImportacionDTO.error(linea.numero(),
+                                linea.mensaje() != null ? linea.mensaje() : "Error de validación",
+                                linea.errores().isEmpty() ? null : linea.errores()));
+                        continue;
+                    }
+                    bloque.add(productoService.convertirAProducto(linea.producto()));
+                    lineas.add(linea.numero());
+                    if (bloque.size() == tamanioBloque) {
+                        esperar(enCurso, contadores, salida);
+                        enCurso = guardarEnSegundoPlano(persistencia, bloque, lineas);
+                        bloque.clear();
+                        lineas.clear();
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                // CSV mal formado (ej. comillas sin cerrar): no se puede seguir leyendo, se guarda lo leído
+                contadores.errores++;
+                long linea = e.getLocation() != null ? e.getLocation().getLineNr() : contadores.procesadas + 1;
+                salida.accept(ProgresoImportacionDTO.error(linea, "Archivo inválido: " + e.getOriginalMessage(), null));
+            }
+            esperar(enCurso, contadores, salida);
+            if (!bloque.isEmpty()) {
+                esperar(guardarEnSegundoPlano(persistencia, bloque, lineas), contadores, salida);
+            }
+            salida.accept(ProgresoImportacionDTO.avance(ProgresoImportacionDTO.Tipo.RESUMEN,
+                    contadores.procesadas, contadores.creados, contadores.errores));
+        } finally {
+            // Si la lectura falla (ej. el cliente cortó la conexión) los bloques ya guardados quedan guardados
+            persistencia.shutdownNow();
+        }
+    }
+
+    private static class Contadores {
+        long procesadas;
+        long creados;
+        long errores;
+    }
+
+    private record BloqueEnCurso(Future<Integer> guardado, List<Long> lineas) {
+    }
+
+    private record LineaImportada(long numero, ProductoDTO producto, String mensaje, Map<String, String> errores) {
+    }
+
+    // Devuelve null al llegar al final de la entrada
+    private interface LectorLineas extends AutoCloseable {
+        LineaImportada siguiente() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private BloqueEnCurso guardarEnSegundoPlano(ExecutorService persistencia, List<Producto> bloque, List<Long> lineas) {
+        List<Producto> productos = new ArrayList<>(bloque);
+        return new BloqueEnCurso(persistencia.submit(() -> productoService.crearProductos(productos).size()),
+                new ArrayList<>(lineas));
+    }
+
+    private void esperar(BloqueEnCurso bloque, Contadores contadores, Consumer<ProgresoImportacionDTO> salida) {
+        if (bloque == null) {
+            return;
+        }
+        try {
+            contadores.creados += bloque.guardado().get();
+        } catch (ExecutionException e) {
+            // La transacción del bloque se revierte completa: todas sus líneas quedan con error
+            log.warn("Falló la importación de un bloque de {} productos", bloque.lineas().size(), e.getCause());
+            for (Long linea : bloque.lineas()) {
+                salida.accept(ProgresoImportacionDTO.error(linea, "No se pudo guardar el bloque: " + e.getCause().getMessage(), null));
+            }
+            contadores.errores += bloque.lineas().size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("La importación fue interrumpida", e);
+        }
+        salida.accept(ProgresoImportacionDTO.avance(ProgresoImportacionDTO.Tipo.PROGRESO,
+                contadores.procesadas, contadores.creados, contadores.errores));
+    }
+
+    private LectorLineas lectorNdjson(BufferedReader lineas) {
+        return new LectorLineas() {
+            private long numero;
+
+            @Override
+            public LineaImportada siguiente() throws IOException {
+                String texto;
+                do {
+                    texto = lineas.readLine();
+                    numero++;
+                } while (texto != null && texto.isBlank());
+                if (texto == null) {
+                    return null;
+                }
+                try {
+                    ProductoDTO dto = objectMapper.readValue(texto, ProductoDTO.class);
+                    return new LineaImportada(numero, dto, null, validar(dto));
+                } catch (JsonProcessingException e) {
+                    return new LineaImportada(numero, null, "JSON inválido: " + e.getOriginalMessage(), Map.of());
+                }
+            }
+
+            @Override
+            public void close() {
+                // El contenedor cierra el cuerpo de la petición
+            }
+        };
+    }
+
+    // La línea informada es la del registro contando el encabezado (coincide con la del archivo
+    // salvo que algún campo entre comillas ocupe varias líneas)
+    private LectorLineas lectorCsv(Reader lector) throws IOException {
+        MappingIterator<Map<String, String>> filas = csvMapper.readerForMapOf(String.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .readValues(lector);
+        return new LectorLineas() {
+            private long numero = 1;
+
+            @Override
+            public LineaImportada siguiente() throws IOException {
+                if (!filas.hasNextValue()) {
+                    return null;
+                }
+                Map<String, String> fila = filas.nextValue();
+                numero++;
+                Map<String, String> errores = new LinkedHashMap<>();
+                ProductoDTO dto = desdeCsv(fila, errores);
+                // Los errores de conversión (ej. "abc" como precio) reemplazan al "no puede ser nulo" de la validación
+                Map<String, String> validacion = new LinkedHashMap<>(validar(dto));
+                validacion.putAll(errores);
+                return new LineaImportada(numero, dto, null, validacion);
+            }
+
+            @Override
+            public void close() throws IOException {
+                filas.close();
+            }
+        };
+    }
+
+    private ProductoDTO desdeCsv(Map<String, String> fila, Map<String, String> errores) {
+        ProductoDTO dto = new ProductoDTO();
+        dto.setNombre(valor(fila, "nombre"));
+        dto.setDescripcion(valor(fila, "descripcion"));
+        dto.setPrecio(convertir(fila, "precio", Double::valueOf, "El precio debe ser un número", errores));
+        dto.setStock(convertir(fila, "stock", Integer::valueOf, "El stock debe ser un número entero", errores));
+        dto.setCategoria(convertir(fila, "categoria", texto -> Categoria.valueOf(texto.toUpperCase(Locale.ROOT)),
+                "Categoría inválida", errores));
+        return dto;
+    }
+
+    private static <T> T convertir(Map<String, String> fila, String columna, Function<String, T> conversion,
+                                   String mensaje, Map<String, String> errores) {
+        String texto = valor(fila, columna);
+        if (texto == null) {
+            return null;
+        }
+        try {
+            return conversion.apply(texto);
+        } catch (IllegalArgumentException e) {
+            errores.put(columna, mensaje + ": " + texto);
+            return null;
+        }
+    }
+
+    // Las celdas vacías se toman como nulas
+    private static String valor(Map<String, String> fila, String columna) {
+        String texto = fila.get(columna);
+        return texto == null || texto.isBlank() ? null : texto.trim();
+    }
+
+    private void persistirBloque(List<Producto> bloque, List<Integer> indices, ResultadoLoteDTO[] resultados) {
+        try {
+            List<Producto> guardados = productoService.crearProductos(bloque);
+            for (int j = 0; j < guardados.size(); j++) {
+                resultados[indices.get(j)] = ResultadoLoteDTO.ok(indices.get(j), guardados.get(j).getId());
+            }
+        } catch (RuntimeException e) {
+            // La transacción del bloque se revierte completa: todos sus elementos quedan con error
+            log.warn("Falló la creación de un bloque de {} productos", bloque.size(), e);
+            for (Integer indice : indices) {
+                resultados[indice] = ResultadoLoteDTO.error(indice, null, "No se pudo guardar el bloque: " + e.getMessage(), null);
+            }
+        }
+    }
+
+    private void aplicarStock(Map<Long, Integer> bloque, List<Integer> indices,
+                              List<ActualizacionStockLoteDTO> cambios, ResultadoLoteDTO[] resultados) {
+        Map<Long, Producto> actualizados = productoService.actualizarStockLote(bloque);
+        for (Integer indice : indices) {
+            Long id = cambios.get(indice).getId();
+            resultados[indice] = actualizados.containsKey(id)
+                    ? ResultadoLoteDTO.ok(indice, id)
+                    : ResultadoLoteDTO.error(indice, id, "Producto no encontrado con ID: " + id, null);
+        }
+    }
+
+    private void verificarTamanio(List<?> elementos) {
+        if (elementos.size() > maximoElementos) {
+            throw new SolicitudInvalidaException("El lote no puede superar los " + maximoElementos + " elementos");
+        }
+    }
+
+    private <T> Map<String, String> validar(T dto) {
+        if (dto == null) {
+            return Map.of("elemento", "El elemento no puede ser nulo");
+        }
+        Set<ConstraintViolation<T>> violaciones = validator.validate(dto);
+        if (violaciones.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> errores = new LinkedHashMap<>();
+        for (ConstraintViolation<T> violacion : violaciones) {
+            errores.put(violacion.getPropertyPath().toString(), violacion.getMessage());
+        }
+        return errores;
+    }
+}
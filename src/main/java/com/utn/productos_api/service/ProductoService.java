@@ -1,116 +1,418 @@
 package com.utn.productos_api.service;
 
+import com.utn.productos_api.dto.FiltroProductosDTO;
 import com.utn.productos_api.dto.ProductoDTO;
 import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.dto.VersionProductoDTO;
+import com.utn.productos_api.event.ProductoCambiadoEvent;
+import com.utn.productos_api.config.CacheConfig;
+import com.utn.productos_api.exception.PrecondicionFallidaException;
 import com.utn.productos_api.exception.ProductoNotFoundException;
+import com.utn.productos_api.mapper.ProductoMapper;
 import com.utn.productos_api.model.Categoria;
 import com.utn.productos_api.model.Producto;
 import com.utn.productos_api.repository.ProductoRepository;
+import com.utn.productos_api.repository.ProductoSpecifications;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class ProductoService {
 
+    // Tamaño máximo de página para evitar que un cliente pida toda la tabla de una vez
+    public static final int LIMITE_MAXIMO_PAGINA = 1000;
+
+    // Métricas de latencia (percentiles configurados en application.properties).
+    // Las conversiones a DTO no se miden: las genera MapStruct y el costo del timer superaría al de la conversión.
+    static final String METRICA_SERVICIO = "productos.servicio";
+
     private final ProductoRepository productoRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache cacheProductos;
+    private final Cache cachePorCategoria;
+    private final MotorStock motorStock;
+    private final ProductoMapper productoMapper;
+    private final LecturasCompartidas lecturasCompartidas;
+    private final EscriturasRecientes escriturasRecientes;
+    // Cuánto espera una petición la consulta que ya está haciendo otra por la misma clave
+    private final Duration esperaMaximaPorId;
+    private final Duration esperaMaximaPorCategoria;
 
     // Inyección de dependencias por constructor
     @Autowired
-    public ProductoService(ProductoRepository productoRepository) {
+    public ProductoService(ProductoRepository productoRepository, EntityManager entityManager,
+                           ApplicationEventPublisher eventPublisher, CacheManager cacheManager,
+                           MotorStock motorStock, ProductoMapper productoMapper,
+                           LecturasCompartidas lecturasCompartidas, EscriturasRecientes escriturasRecientes,
+                           @Value("${productos.lecturas.espera-maxima.por-id:1s}") Duration esperaMaximaPorId,
+                           @Value("${productos.lecturas.espera-maxima.por-categoria:3s}") Duration esperaMaximaPorCategoria) {
         this.productoRepository = productoRepository;
+        this.motorStock = motorStock;
+        this.productoMapper = productoMapper;
+        this.lecturasCompartidas = lecturasCompartidas;
+        this.escriturasRecientes = escriturasRecientes;
+        this.esperaMaximaPorId = esperaMaximaPorId;
+        this.esperaMaximaPorCategoria = esperaMaximaPorCategoria;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.cacheProductos = cacheManager.getCache(CacheConfig.CACHE_PRODUCTOS);
+        this.cachePorCategoria = cacheManager.getCache(CacheConfig.CACHE_PRODUCTOS_POR_CATEGORIA);
     }
 
     // Implementación de los métodos
+    // Las escrituras corren en una única transacción cada una. Las lecturas que son una sola consulta
+    // usan la transacción de solo lectura del repositorio, y las que pasan por la caché no abren
+    // ninguna: en un acierto de caché no se toma una conexión del pool.
 
+    @Transactional
+    @Timed(METRICA_SERVICIO)
     public Producto crearProducto(Producto producto) {
-        return productoRepository.save(producto);
+        Producto productoGuardado = productoRepository.save(producto);
+        publicarCambio(ProductoCambiadoEvent.Tipo.CREADO, productoGuardado.getId(), null, productoGuardado);
+        return productoGuardado;
+    }
+
+    /**
+     * Crea un bloque de productos en una sola transacción.
+     * Con la secuencia "pooled" de Producto los IDs se asignan en memoria y Hibernate
+     * agrupa los INSERT en batches de JDBC (hibernate.jdbc.batch_size) al hacer flush.
+     * Al final se limpia el contexto de persistencia para no acumular entidades entre bloques.
+     */
+    @Transactional
+    @Timed(METRICA_SERVICIO)
+    public List<Producto> crearProductos(List<Producto> productos) {
+        List<Producto> guardados = productoRepository.saveAll(productos);
+        entityManager.flush();
+        for (Producto producto : guardados) {
+            publicarCambio(ProductoCambiadoEvent.Tipo.CREADO, producto.getId(), null, producto);
+        }
+        entityManager.clear();
+        return guardados;
+    }
+
+    /**
+     * Devuelve una página de productos a partir del cursor (el último ID recibido por el cliente).
+     * Se pide un elemento de más para saber si existe una página siguiente sin hacer un COUNT.
+     * La consulta proyecta directo a ProductoResponseDTO: no se crean entidades ni otra lista de DTOs.
+     */
+    @Transactional(readOnly = true)
+    @Timed(METRICA_SERVICIO)
+    public PaginaCursor<ProductoResponseDTO> obtenerPagina(Long cursor, int limite) {
+        int tamanio = Math.min(Math.max(limite, 1), LIMITE_MAXIMO_PAGINA);
+        long desde = cursor != null ? cursor : 0L;
+
+        List<ProductoResponseDTO> productos = productoRepository.buscarResumen(
+                ProductoSpecifications.idMayorQue(desde), Sort.by(Sort.Direction.ASC, "id"), tamanio + 1);
+        if (productos.size() <= tamanio) {
+            return new PaginaCursor<>(conStockVigente(productos), null);
+        }
+        List<ProductoResponseDTO> pagina = productos.subList(0, tamanio);
+        return new PaginaCursor<>(conStockVigente(pagina), pagina.get(tamanio - 1).id());
     }
 
-    public List<Producto> obtenerTodos() {
-        return productoRepository.findAll();
+    /**
+     * Recorre todos los productos fila por fila entregándolos al consumidor, ya con el stock vigente.
+     * Se leen como proyección a ProductoResponseDTO con un cursor de la base: no hay entidades
+     * que desacoplar y la memoria usada no depende del tamaño de la tabla.
+     */
+    @Transactional(readOnly = true)
+    @Timed(METRICA_SERVICIO)
+    public void recorrerTodos(Consumer<ProductoResponseDTO> consumidor) {
+        try (Stream<ProductoResponseDTO> productos = productoRepository.streamResumen()) {
+            productos.forEach(producto ->
+                    consumidor.accept(producto.conStock(motorStock.stockVigente(producto.id(), producto.stock()))));
+        }
     }
 
+    /**
+     * Busca un producto pasando primero por la caché.
+     * La instancia devuelta puede estar compartida entre peticiones: es de solo lectura.
+     * Con réplicas, un producto escrito hace poco se lee de la primaria (ver EscriturasRecientes).
+     */
+    @Timed(METRICA_SERVICIO)
     public Producto obtenerPorId(Long id) {
-        // findById devuelve un Optional. Usamos orElseThrow para lanzar nuestra
-        // excepción personalizada si está vacío.
-        return productoRepository.findById(id)
-                .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado con ID: " + id));
+        return leerDeCache(cacheProductos, id, esperaMaximaPorId,
+                () -> escriturasRecientes.leer(id, () -> buscarPorId(id)));
+    }
+
+    /**
+     * Versión actual de un producto (para su ETag) sin cargar la entidad:
+     * se usa la copia en caché si existe y, si no, una consulta de dos columnas.
+     */
+    @Timed(METRICA_SERVICIO)
+    public VersionProductoDTO obtenerVersion(Long id) {
+        Producto enCache = cacheProductos.get(id, Producto.class);
+        if (enCache != null) {
+            return versionDe(enCache);
+        }
+        VersionProductoDTO persistida = escriturasRecientes.leer(id, () -> productoRepository.findVersionById(id))
+                .orElseThrow(() -> new ProductoNotFoundException(id));
+        return new VersionProductoDTO(persistida.getVersion(), motorStock.stockVigente(id, persistida.getStock()));
     }
 
-    public List<Producto> obtenerPorCategoria(Categoria categoria) {
-        return productoRepository.findByCategoria(categoria);
+    public VersionProductoDTO versionDe(Producto producto) {
+        return new VersionProductoDTO(producto.getVersion(), motorStock.stockVigente(producto.getId(), producto.getStock()));
     }
 
+    /**
+     * Lista los productos de una categoría pasando primero por la caché.
+     * La consulta proyecta directo a ProductoResponseDTO (sin entidades administradas).
+     * La lista cacheada es inmodificable y sus DTOs no se modifican: el stock vigente se aplica sobre copias.
+     */
+    @Timed(METRICA_SERVICIO)
+    public List<ProductoResponseDTO> obtenerPorCategoria(Categoria categoria) {
+        List<ProductoResponseDTO> productos = leerDeCache(cachePorCategoria, categoria, esperaMaximaPorCategoria,
+                () -> escriturasRecientes.leer(categoria,
+                        () -> Collections.unmodifiableList(productoRepository.findResumenByCategoria(categoria))));
+        return conStockVigente(productos);
+    }
+
+    /**
+     * Consulta con filtros combinables, orden y límite resueltos en la base de datos.
+     * Se desempata siempre por ID para que el orden sea estable.
+     * Nota: los filtros de stock se evalúan sobre la columna de la base, que puede ir unos
+     * milisegundos detrás de MotorStock; el stock devuelto sí es el vigente.
+     */
+    @Transactional(readOnly = true)
+    @Timed(METRICA_SERVICIO)
+    public List<ProductoResponseDTO> consultar(FiltroProductosDTO filtro) {
+        Sort.Direction direccion = Sort.Direction.fromString(filtro.getDireccion());
+        Sort orden = Sort.by(direccion, filtro.getOrdenarPor());
+        if (!"id".equals(filtro.getOrdenarPor())) {
+            orden = orden.and(Sort.by(direccion, "id"));
+        }
+        int limite = Math.min(filtro.getLimite(), LIMITE_MAXIMO_PAGINA);
+        return conStockVigente(productoRepository.buscarResumen(
+                ProductoSpecifications.desdeFiltro(filtro), orden, limite));
+    }
+
+    /**
+     * Elimina el producto con un único DELETE; si no afectó ninguna fila el ID no existe (404).
+     * La foto previa para el evento se toma de la caché cuando está, sin consultar la base;
+     * si no, de una proyección (sin cargar la entidad). En los dos casos con el stock vigente
+     * de MotorStock (los cambios de stock no desalojan la caché). Las estadísticas necesitan
+     * la categoría, el precio y el stock para restar el producto sin reconciliar con la base.
+     */
+    @Transactional
+    @Timed(METRICA_SERVICIO)
     public void eliminarProducto(Long id) {
-        // Primero verificamos que exista. Si no, obtenerPorId lanzará la excepción 404.
-        Producto producto = obtenerPorId(id);
-        productoRepository.delete(producto);
+        Producto enCache = cacheProductos.get(id, Producto.class);
+        ProductoResponseDTO anterior = enCache != null
+                ? convertirAProductoResponseDTO(enCache)
+                : productoRepository.findResumenById(id)
+                        .map(producto -> producto.conStock(motorStock.stockVigente(id, producto.stock())))
+                        .orElseThrow(() -> new ProductoNotFoundException(id));
+        if (productoRepository.eliminarPorId(id) == 0) {
+            throw new ProductoNotFoundException(id);
+        }
+        publicarCambio(ProductoCambiadoEvent.Tipo.ELIMINADO, id, anterior, null);
     }
 
     public Producto actualizarProducto(Long id, Producto productoActualizado) {
-        // Reutilizamos obtenerPorId. Si no existe, lanzará 404.
-        Producto productoExistente = obtenerPorId(id);
+        return actualizarProducto(id, productoActualizado, null);
+    }
+
+    /**
+     * Actualiza el producto si su versión actual es la esperada (null = sin precondición).
+     * Si otra petición lo modifica entre la lectura y el UPDATE, Hibernate lo detecta por
+     * la columna version y lanza ObjectOptimisticLockingFailureException.
+     */
+    @Transactional
+    @Timed(METRICA_SERVICIO)
+    public Producto actualizarProducto(Long id, Producto productoActualizado, VersionProductoDTO versionEsperada) {
+        // Las escrituras leen de la base y no de la caché, para no modificar instancias compartidas.
+        Producto productoExistente = buscarPorId(id);
+        verificarVersion(id, versionEsperada, versionDe(productoExistente));
+        ProductoResponseDTO anterior = convertirAProductoResponseDTO(productoExistente);
 
         // Actualizamos los campos
-        productoExistente.setNombre(productoActualizado.getNombre());
-        productoExistente.setDescripcion(productoActualizado.getDescripcion());
-        productoExistente.setPrecio(productoActualizado.getPrecio());
-        productoExistente.setStock(productoActualizado.getStock());
-        productoExistente.setCategoria(productoActualizado.getCategoria());
+        productoMapper.actualizarEntidad(productoActualizado, productoExistente);
 
-        return productoRepository.save(productoExistente);
+        // MotorStock toma el nuevo stock cuando se confirma la transacción (ver alCambiarProducto)
+        Producto productoGuardado = productoRepository.save(productoExistente);
+        publicarCambio(ProductoCambiadoEvent.Tipo.ACTUALIZADO, id, anterior, productoGuardado);
+        return productoGuardado;
     }
 
+    /**
+     * Las operaciones de stock se resuelven en MotorStock y se persisten en segundo plano
+     * con un UPDATE de la columna stock (sin transacción propia en la petición).
+     * El producto se lee primero (de la caché si está): detecta el 404 y, si MotorStock todavía
+     * no lo sigue, le da el stock inicial sin otra consulta a la base.
+     * El producto devuelto puede tener el stock de la base desactualizado:
+     * convertirAProductoResponseDTO aplica siempre el stock vigente.
+     *
+     * No se usa un UPDATE producto SET stock = ? WHERE id = ? por petición con la cantidad de filas
+     * para el 404: con MotorStock la petición no toca la base. Ese mismo UPDATE lo ejecuta el volcado,
+     * en batch y con un solo valor por producto. Un UPDATE por petición volvería a serializar en el lock
+     * de la fila las ráfagas sobre un mismo producto. El 404 sale de la lectura del producto, que casi
+     * siempre es un acierto de caché; si el producto se elimina antes del volcado, el UPDATE no afecta
+     * filas y MotorStock lo deja de seguir al recibir el evento de eliminación.
+     */
+    @Timed(METRICA_SERVICIO)
     public Producto actualizarStock(Long id, Integer nuevoStock) {
-        // Reutilizamos obtenerPorId.
-        Producto productoExistente = obtenerPorId(id);
-        productoExistente.setStock(nuevoStock);
-        return productoRepository.save(productoExistente);
+        Producto producto = productoEnMotor(id);
+        motorStock.establecer(id, nuevoStock, cambio -> publicarCambioStock(producto, cambio));
+        return producto;
     }
 
+    /**
+     * Igual que actualizarStock, pero devuelve la secuencia con la que el cambio quedó en el diario
+     * del modo asíncrono (ColaStockAsincrona espera a que ese registro esté en disco y la informa).
+     */
+    @Timed(METRICA_SERVICIO)
+    public long actualizarStockEnDiario(Long id, Integer nuevoStock) {
+        Producto producto = productoEnMotor(id);
+        return motorStock.establecer(id, nuevoStock, cambio -> publicarCambioStock(producto, cambio)).getSecuencia();
+    }
 
     /**
-     * Convierte una Entidad Producto a un ProductoResponseDTO.
+     * Fija el stock solo si el producto sigue en la versión esperada.
+     * El stock se compara en MotorStock, en el mismo paso que lo cambia.
      */
-    public ProductoResponseDTO convertirAProductoResponseDTO(Producto producto) {
-        ProductoResponseDTO dto = new ProductoResponseDTO();
-        dto.setId(producto.getId());
-        dto.setNombre(producto.getNombre());
-        dto.setDescripcion(producto.getDescripcion());
-        dto.setPrecio(producto.getPrecio());
-        dto.setStock(producto.getStock());
-        dto.setCategoria(producto.getCategoria());
-        return dto;
+    @Timed(METRICA_SERVICIO)
+    public Producto actualizarStock(Long id, Integer nuevoStock, VersionProductoDTO versionEsperada) {
+        if (versionEsperada == null) {
+            return actualizarStock(id, nuevoStock);
+        }
+        Producto producto = productoEnMotor(id);
+        verificarVersion(id, versionEsperada, versionDe(producto));
+        motorStock.establecerSi(id, versionEsperada.getStock(), nuevoStock, cambio -> publicarCambioStock(producto, cambio));
+        return producto;
+    }
+
+    @Timed(METRICA_SERVICIO)
+    public Producto reservarStock(Long id, int cantidad) {
+        Producto producto = productoEnMotor(id);
+        motorStock.reservar(id, cantidad, cambio -> publicarCambioStock(producto, cambio));
+        return producto;
+    }
+
+    @Timed(METRICA_SERVICIO)
+    public Producto liberarStock(Long id, int cantidad) {
+        Producto producto = productoEnMotor(id);
+        motorStock.liberar(id, cantidad, cambio -> publicarCambioStock(producto, cambio));
+        return producto;
     }
 
     /**
-     * Convierte un ProductoDTO (de creación) a una Entidad Producto.
+     * Fija el stock de varios productos con una sola consulta para todo el bloque.
+     * Los IDs que no existen no aparecen en el mapa devuelto.
      */
-    public Producto convertirAProducto(ProductoDTO dto) {
-        Producto producto = new Producto();
-        // El ID se genera automáticamente, no se setea aquí
-        producto.setNombre(dto.getNombre());
-        producto.setDescripcion(dto.getDescripcion());
-        producto.setPrecio(dto.getPrecio());
-        producto.setStock(dto.getStock());
-        producto.setCategoria(dto.getCategoria());
+    @Timed(METRICA_SERVICIO)
+    public Map<Long, Producto> actualizarStockLote(Map<Long, Integer> stocks) {
+        List<Producto> productos = productoRepository.findAllById(stocks.keySet());
+        // Los productos que todavía no están en memoria toman el stock recién leído
+        motorStock.cargar(productos);
+
+        Map<Long, Producto> actualizados = new HashMap<>();
+        for (Producto producto : productos) {
+            motorStock.establecer(producto.getId(), stocks.get(producto.getId()), cambio -> publicarCambioStock(producto, cambio));
+            actualizados.put(producto.getId(), producto);
+        }
+        return actualizados;
+    }
+
+    private void verificarVersion(Long id, VersionProductoDTO esperada, VersionProductoDTO actual) {
+        if (esperada != null && !esperada.equals(actual)) {
+            throw new PrecondicionFallidaException("El producto con ID: " + id + " fue modificado por otra petición");
+        }
+    }
+
+    // Un producto que MotorStock todavía no sigue entra con el stock de la entidad leída
+    // (el de la caché coincide con la base: solo cambia por MotorStock o por un PUT, que la desaloja)
+    private Producto productoEnMotor(Long id) {
+        Producto producto = obtenerPorId(id);
+        motorStock.cargar(List.of(producto));
         return producto;
     }
 
+    private Producto buscarPorId(Long id) {
+        // findById devuelve un Optional. Usamos orElseThrow para lanzar nuestra
+        // excepción personalizada si está vacío.
+        return productoRepository.findById(id)
+                .orElseThrow(() -> new ProductoNotFoundException(id));
+    }
+
     /**
-     * Actualiza una entidad Producto existente con datos de un ProductoDTO.
+     * Lectura "read-through": si la clave no está en caché se carga con el loader.
+     * Las peticiones concurrentes por la misma clave comparten una sola consulta (LecturasCompartidas).
      */
-    public Producto actualizarEntidadDesdeDTO(Producto productoExistente, ProductoDTO dto) {
-        productoExistente.setNombre(dto.getNombre());
-        productoExistente.setDescripcion(dto.getDescripcion());
-        productoExistente.setPrecio(dto.getPrecio());
-        productoExistente.setStock(dto.getStock());
-        productoExistente.setCategoria(dto.getCategoria());
-        return productoExistente;
+    private <T> T leerDeCache(Cache cache, Object clave, Duration esperaMaxima, Supplier<T> loader) {
+        return lecturasCompartidas.leer(cache, clave, esperaMaxima, loader);
     }
 
+    // MotorStock lo llama bajo el lock del producto: los avisos salen en el orden de los cambios
+    private void publicarCambioStock(Producto producto, MotorStock.CambioStock cambio) {
+        ProductoResponseDTO anterior = instantanea(producto, cambio.getAnterior());
+        ProductoResponseDTO actual = instantanea(producto, cambio.getActual());
+        eventPublisher.publishEvent(new ProductoCambiadoEvent(ProductoCambiadoEvent.Tipo.STOCK, producto.getId(), anterior, actual));
+    }
+
+    /**
+     * Aplica el stock de MotorStock a DTOs armados fuera de este servicio (caché, proyecciones, índice).
+     * Los DTOs son inmutables: los que cambian se reemplazan por copias. La lista se copia recién
+     * al encontrar el primero distinto; si ninguno cambia se devuelve la misma lista.
+     */
+    public List<ProductoResponseDTO> conStockVigente(List<ProductoResponseDTO> productos) {
+        List<ProductoResponseDTO> resultado = null;
+        for (int i = 0; i < productos.size(); i++) {
+            ProductoResponseDTO dto = productos.get(i);
+            ProductoResponseDTO vigente = dto.conStock(motorStock.stockVigente(dto.id(), dto.stock()));
+            if (vigente != dto && resultado == null) {
+                resultado = new ArrayList<>(productos);
+            }
+            if (resultado != null) {
+                resultado.set(i, vigente);
+            }
+        }
+        return resultado != null ? resultado : productos;
+    }
 
-}
\ No newline at end of file
+    private void publicarCambio(ProductoCambiadoEvent.Tipo tipo, Long id,
+                                ProductoResponseDTO anterior, Producto actual) {
+        // El estado posterior es el que se escribió (sin aplicar el stock en memoria)
+        ProductoResponseDTO dtoActual = actual != null ? instantanea(actual, actual.getStock()) : null;
+        eventPublisher.publishEvent(new ProductoCambiadoEvent(tipo, id, anterior, dtoActual));
+    }
+
+    private ProductoResponseDTO instantanea(Producto producto, Integer stock) {
+        return productoMapper.aResponseDTO(producto, stock);
+    }
+
+
+    /**
+     * Convierte una Entidad Producto a un ProductoResponseDTO.
+     * El stock en memoria (MotorStock) tiene prioridad sobre el de la entidad.
+     */
+    public ProductoResponseDTO convertirAProductoResponseDTO(Producto producto) {
+        return productoMapper.aResponseDTO(producto, motorStock.stockVigente(producto.getId(), producto.getStock()));
+    }
+
+    /**
+     * Convierte un ProductoDTO (de creación) a una Entidad Producto.
+     * El ID se genera automáticamente, no se setea aquí.
+     */
+    public Producto convertirAProducto(ProductoDTO dto) {
+        return productoMapper.aEntidad(dto);
+    }
+}
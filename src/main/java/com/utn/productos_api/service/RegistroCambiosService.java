@@ -0,0 +1,294 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.dto.CambioProductoDTO;
+import com.utn.productos_api.dto.PaginaCambiosDTO;
+import com.utn.productos_api.event.ProductoCambiadoEvent;
+import com.utn.productos_api.exception.CambiosExpiradosException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Registro ordenado de los cambios de productos (alta, modificación, stock y baja), para que otros
+ * servicios se enteren de los cambios sin volver a pedir el catálogo completo.
+ * Los cambios se guardan en un buffer circular de tamaño fijo con números de secuencia crecientes;
+ * los clientes lo leen por long-poll (GET /changes?since=) o se suscriben por Server-Sent Events.
+ * Cada cliente avanza con su propia secuencia sobre el mismo buffer: un cliente lento no acumula
+ * memoria, y si se atrasa más que la capacidad del buffer recibe 410 y debe volver a sincronizar.
+ */
+@Service
+public class RegistroCambiosService {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroCambiosService.class);
+
+    private static final int CAMBIOS_POR_ENVIO_SSE = 100;
+
+    private final CambioProductoDTO[] cambios;
+    private final int maximoClientes;
+    // Las secuencias arrancan en el instante de inicio (en microsegundos): después de un reinicio
+    // siempre son mayores que las anteriores, y un cliente con una secuencia vieja recibe 410
+    private final long secuenciaInicial = System.currentTimeMillis() * 1000;
+    // Secuencia del último cambio registrado (protegida por el lock del servicio)
+    private long ultimaSecuencia = secuenciaInicial;
+
+    private final Queue<Espera> esperas = new ConcurrentLinkedQueue<>();
+    private final Queue<Suscriptor> suscriptores = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean notificacionPendiente = new AtomicBoolean();
+    private final ExecutorService envios = Executors.newFixedThreadPool(2, r -> {
+        Thread hilo = new Thread(r, "envio-cambios");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private record Espera(long desde, int limite, DeferredResult<PaginaCambiosDTO> resultado) {
+    }
+
+    private static class Suscriptor {
+        final SseEmitter emitter;
+        final AtomicBoolean enviando = new AtomicBoolean();
+        volatile long desde;
+        volatile boolean activo = true;
+
+        Suscriptor(SseEmitter emitter, long desde) {
+            this.emitter = emitter;
+            this.desde = desde;
+        }
+    }
+
+    @Autowired
+    public RegistroCambiosService(@Value("${productos.cambios.capacidad:100000}") int capacidad,
+                                  @Value("${productos.cambios.maximo-clientes:1000}") int maximoClientes) {
+        this.cambios = new CambioProductoDTO[capacidad];
+        this.maximoClientes = maximoClientes;
+    }
+
+    // Después del commit: la secuencia sigue el orden en que se confirmaron los cambios.
+    // Los de stock no usan transacción: MotorStock los avisa bajo el lock del producto, en el orden
+    // en que cambió el contador, así dos cambios del mismo producto nunca quedan invertidos
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarProducto(ProductoCambiadoEvent evento) {
+        synchronized (this) {
+            ultimaSecuencia++;
+            cambios[indice(ultimaSecuencia)] = new CambioProductoDTO(ultimaSecuencia, LocalDateTime.now(),
+                    evento.getTipo(), evento.getId(), evento.getActual());
+        }
+        // Responder a las esperas lee el buffer por cada cliente: no lo hace el hilo que registró el cambio.
+        // Una sola notificación en cola: los cambios que llegan mientras tanto los cubre esa misma
+        if (notificacionPendiente.compareAndSet(false, true)) {
+            envios.execute(this::notificar);
+        }
+    }
+
+    public synchronized long ultimaSecuencia() {
+        return ultimaSecuencia;
+    }
+
+    /**
+     * Devuelve hasta limite cambios posteriores a la secuencia desde.
+     * Dentro de la página, los cambios de stock de un producto que vuelve a cambiar más adelante
+     * se descartan: el último ya trae el estado vigente. La secuencia siguiente no cambia por eso.
+     */
+    public PaginaCambiosDTO leer(long desde, int limite) {
+        List<CambioProductoDTO> pagina = new ArrayList<>();
+        long hasta;
+        synchronized (this) {
+            long primera = Math.max(secuenciaInicial + 1, ultimaSecuencia - cambios.length + 1);
+            if (desde < primera - 1 || desde > ultimaSecuencia) {
+                throw new CambiosExpiradosException("La secuencia " + desde + " ya no está disponible: "
+                        + "vuelva a sincronizar el catálogo y continúe desde " + ultimaSecuencia);
+            }
+            hasta = Math.min(ultimaSecuencia, desde + limite);
+            for (long secuencia = desde + 1; secuencia <= hasta; secuencia++) {
+                pagina.add(cambios[indice(secuencia)]);
+            }
+        }
+        return new PaginaCambiosDTO(agrupar(pagina), hasta);
+    }
+
+    /**
+     * Long-poll: si hay cambios posteriores a desde responde en el momento; si no, espera
+     * hasta que llegue alguno o venza la espera (en ese caso responde una página vacía).
+     * Sin desde se empieza por el último cambio registrado.
+     */
+    public DeferredResult<PaginaCambiosDTO> esperar(Long desde, int limite, Duration espera) {
+        long inicio = desde != null ? desde : ultimaSecuencia();
+        PaginaCambiosDTO pagina = leer(inicio, limite);
+        DeferredResult<PaginaCambiosDTO> resultado = new DeferredResult<>(espera.toMillis(),
+                new PaginaCambiosDTO(List.of(), inicio));
+        // Con demasiados clientes esperando se responde enseguida: el cliente vuelve a preguntar
+        if (!pagina.getCambios().isEmpty() || espera.isZero() || esperas.size() >= maximoClientes) {
+            resultado.setResult(pagina);
+            return resultado;
+        }
+
+        Espera nueva = new Espera(inicio, limite, resultado);
+        esperas.add(nueva);
+        resultado.onCompletion(() -> esperas.remove(nueva));
+        // Un cambio pudo llegar entre la lectura y el registro de la espera
+        if (ultimaSecuencia() > inicio) {
+            completar(nueva);
+        }
+        return resultado;
+    }
+
+    /**
+     * Suscripción por Server-Sent Events: cada cambio se envía como un evento con id = secuencia,
+     * así el navegador reanuda desde el último recibido (cabecera Last-Event-ID) al reconectarse.
+     */
+    public SseEmitter suscribir(Long desde, Duration duracion) {
+        SseEmitter emitter = new SseEmitter(duracion.toMillis());
+        long inicio = desde != null ? desde : ultimaSecuencia();
+        if (suscriptores.size() >= maximoClientes) {
+            // Se le indica al cliente que reintente más tarde en lugar de aceptar una conexión más
+            enviarYCerrar(emitter, SseEmitter.event().name("saturado").reconnectTime(30_000).data("Demasiados suscriptores"));
+            return emitter;
+        }
+        try {
+            // Valida la secuencia inicial sin leer cambios
+            leer(inicio, 0);
+        } catch (CambiosExpiradosException e) {
+            enviarYCerrar(emitter, SseEmitter.event().name("expirado").data(e.getMessage()));
+            return emitter;
+        }
+
+        Suscriptor suscriptor = new Suscriptor(emitter, inicio);
+        suscriptores.add(suscriptor);
+        Runnable quitar = () -> {
+            suscriptor.activo = false;
+            suscriptores.remove(suscriptor);
+        };
+        emitter.onCompletion(quitar);
+        emitter.onTimeout(quitar);
+        emitter.onError(error -> quitar.run());
+        programar(suscriptor);
+        return emitter;
+    }
+
+    // Mantiene vivas las conexiones SSE sin cambios y detecta los clientes que se desconectaron
+    @Scheduled(fixedDelayString = "${productos.cambios.intervalo-latido-ms:15000}")
+    public void latido() {
+        for (Suscriptor suscriptor : suscriptores) {
+            envios.execute(() -> {
+                try {
+                    suscriptor.emitter.send(SseEmitter.event().comment("latido"));
+                } catch (IOException | IllegalStateException e) {
+                    suscriptor.emitter.completeWithError(e);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void alCerrar() {
+        envios.shutdownNow();
+        for (Suscriptor suscriptor : suscriptores) {
+            suscriptor.emitter.complete();
+        }
+    }
+
+    private void notificar() {
+        // Antes de leer: un cambio registrado desde acá programa otra notificación
+        notificacionPendiente.set(false);
+        for (Espera espera : esperas) {
+            completar(espera);
+        }
+        for (Suscriptor suscriptor : suscriptores) {
+            programar(suscriptor);
+        }
+    }
+
+    private void completar(Espera espera) {
+        try {
+            espera.resultado().setResult(leer(espera.desde(), espera.limite()));
+        } catch (CambiosExpiradosException e) {
+            espera.resultado().setErrorResult(e);
+        }
+        esperas.remove(espera);
+    }
+
+    // Un solo envío en curso por suscriptor; los envíos bloquean el hilo de envios, no al que registró el cambio
+    private void programar(Suscriptor suscriptor) {
+        if (suscriptor.activo && suscriptor.enviando.compareAndSet(false, true)) {
+            envios.execute(() -> enviar(suscriptor));
+        }
+    }
+
+    private void enviar(Suscriptor suscriptor) {
+        try {
+            while (suscriptor.activo && suscriptor.desde < ultimaSecuencia()) {
+                PaginaCambiosDTO pagina = leer(suscriptor.desde, CAMBIOS_POR_ENVIO_SSE);
+                for (CambioProductoDTO cambio : pagina.getCambios()) {
+                    suscriptor.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(cambio.getSecuencia()))
+                            .name(cambio.getTipo().name())
+                            .data(cambio));
+                }
+                suscriptor.desde = pagina.getSiguiente();
+            }
+        } catch (CambiosExpiradosException e) {
+            // El cliente se atrasó más que el buffer: tiene que volver a sincronizar
+            enviarYCerrar(suscriptor.emitter, SseEmitter.event().name("expirado").data(e.getMessage()));
+            suscriptor.activo = false;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Se cerró una suscripción de cambios", e);
+            suscriptor.activo = false;
+            suscriptor.emitter.completeWithError(e);
+        } finally {
+            suscriptor.enviando.set(false);
+        }
+        // Un cambio pudo llegar justo después de la última lectura
+        if (suscriptor.activo && suscriptor.desde < ultimaSecuencia()) {
+            programar(suscriptor);
+        }
+    }
+
+    private static void enviarYCerrar(SseEmitter emitter, SseEmitter.SseEventBuilder evento) {
+        try {
+            emitter.send(evento);
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    // Recorre la página desde el final: un cambio de stock se descarta si el producto vuelve a cambiar después
+    private static List<CambioProductoDTO> agrupar(List<CambioProductoDTO> pagina) {
+        Set<Long> conCambioPosterior = new HashSet<>();
+        List<CambioProductoDTO> resultado = new ArrayList<>(pagina.size());
+        for (int i = pagina.size() - 1; i >= 0; i--) {
+            CambioProductoDTO cambio = pagina.get(i);
+            boolean reemplazado = !conCambioPosterior.add(cambio.getId());
+            if (!reemplazado || cambio.getTipo() != ProductoCambiadoEvent.Tipo.STOCK) {
+                resultado.add(cambio);
+            }
+        }
+        Collections.reverse(resultado);
+        return resultado;
+    }
+
+    private int indice(long secuencia) {
+        return (int) (secuencia % cambios.length);
+    }
+}
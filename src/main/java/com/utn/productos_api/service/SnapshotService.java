@@ -0,0 +1,141 @@
+package com.utn.productos_api.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Snapshot del catálogo en un archivo CSV, para arrancar con datos sin cargarlos uno por uno.
+ * La restauración es una sola sentencia INSERT ... SELECT FROM CSVREAD que H2 resuelve
+ * internamente (sin un viaje por fila), y la exportación usa CSVWRITE.
+ * Se configura con productos.snapshot.archivo; sin archivo no hace nada.
+ */
+@Service
+public class SnapshotService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+
+    private static final String COLUMNAS = "id, nombre, descripcion, precio, stock, categoria, version";
+    // Debe coincidir con el allocationSize de la secuencia de Producto
+    private static final int IDS_POR_RESERVA = 50;
+
+    /**
+     * Fase de arranque de la restauración. El servidor web empieza a aceptar peticiones en
+     * DEFAULT_PHASE - 2048: se restaura antes, así ninguna petición ve la tabla vacía.
+     * ColaStockAsincrona arranca en la fase siguiente y aplica su diario sobre los datos restaurados.
+     */
+    static final int FASE_RESTAURACION = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MotorStock motorStock;
+    private final String archivo;
+    private final boolean exportarAlCerrar;
+    private volatile boolean iniciado;
+
+    @Autowired
+    public SnapshotService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, MotorStock motorStock,
+                           @Value("${productos.snapshot.archivo:}") String archivo,
+                           @Value("${productos.snapshot.exportar-al-cerrar:false}") boolean exportarAlCerrar) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.motorStock = motorStock;
+        this.archivo = archivo;
+        this.exportarAlCerrar = exportarAlCerrar;
+    }
+
+    // Corre al terminar de crear los beans, antes del servidor web y de ApplicationReadyEvent:
+    // el índice de búsqueda y las estadísticas ya ven los datos
+    @Override
+    public void start() {
+        if (!archivo.isBlank() && Files.exists(Path.of(archivo))) {
+            restaurar();
+        }
+        iniciado = true;
+    }
+
+    // La exportación al cerrar va en alCerrar, cuando ya no entran peticiones
+    @Override
+    public void stop() {
+        iniciado = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return iniciado;
+    }
+
+    @Override
+    public int getPhase() {
+        return FASE_RESTAURACION;
+    }
+
+    /**
+     * Carga el snapshot si la tabla está vacía (con el perfil persistente los datos ya están en el archivo de la base).
+     * Después mueve la secuencia por encima del mayor ID cargado.
+     * Retorna la cantidad de productos cargados.
+     */
+    public int restaurar() {
+        Long existentes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM producto", Long.class);
+        if (existentes != null && existentes > 0) {
+            log.info("La tabla producto ya tiene {} filas, no se restaura el snapshot", existentes);
+            return 0;
+        }
+
+        long inicio = System.nanoTime();
+        Integer cargados = transactionTemplate.execute(estado -> jdbcTemplate.update(
+                "INSERT INTO producto (" + COLUMNAS + ") SELECT " + COLUMNAS
+                        + " FROM CSVREAD(" + literal(archivo) + ", NULL, 'charset=UTF-8')"));
+        Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM producto", Long.class);
+        // Con el optimizador "pooled" el valor de la secuencia es el límite superior del bloque reservado:
+        // se deja un bloque completo de margen para que ningún ID nuevo choque con uno cargado
+        jdbcTemplate.execute("ALTER SEQUENCE producto_seq RESTART WITH " + (maximo + IDS_POR_RESERVA + 1));
+
+        log.info("Snapshot {} restaurado: {} productos en {} ms", archivo, cargados, (System.nanoTime() - inicio) / 1_000_000);
+        return cargados != null ? cargados : 0;
+    }
+
+    /**
+     * Escribe el catálogo completo en el archivo del snapshot.
+     * Se escribe en un archivo temporal y se reemplaza al final, así un corte no deja un snapshot a medias.
+     */
+    public void exportar() {
+        // El stock vigente está en MotorStock: se vuelca antes de leer la tabla
+        motorStock.volcar();
+        Path destino = Path.of(archivo).toAbsolutePath();
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        long inicio = System.nanoTime();
+        jdbcTemplate.execute("CALL CSVWRITE(" + literal(temporal.toString()) + ", "
+                + literal("SELECT " + COLUMNAS + " FROM producto ORDER BY id") + ", 'charset=UTF-8')");
+        try {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo reemplazar el snapshot " + destino, e);
+        }
+        log.info("Snapshot exportado en {} ({} ms)", destino, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void alCerrar() {
+        if (exportarAlCerrar && !archivo.isBlank()) {
+            exportar();
+        }
+    }
+
+    // CSVREAD y CSVWRITE necesitan los argumentos como literales
+    private static String literal(String texto) {
+        return "'" + texto.replace("'", "''") + "'";
+    }
+}
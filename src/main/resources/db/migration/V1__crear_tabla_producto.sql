@@ -0,0 +1,19 @@
+-- Esquema inicial de la tabla producto (antes lo generaba Hibernate con ddl-auto=create)
+
+-- Secuencia "pooled" de Producto: cada llamada reserva 50 IDs (allocationSize = 50)
+CREATE SEQUENCE producto_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE producto (
+    id          BIGINT           NOT NULL,
+    nombre      VARCHAR(255),
+    descripcion VARCHAR(255),
+    precio      DOUBLE PRECISION,
+    stock       INTEGER,
+    categoria   ENUM ('ELECTRONICA', 'ROPA', 'ALIMENTOS', 'HOGAR', 'DEPORTES'),
+    version     BIGINT,
+    CONSTRAINT pk_producto PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_producto_categoria_precio ON producto (categoria, precio);
+CREATE INDEX idx_producto_categoria_stock ON producto (categoria, stock);
+CREATE INDEX idx_producto_nombre ON producto (nombre);
@@ -0,0 +1,147 @@
+package com.utn.productos_api.admision;
+
+import com.utn.productos_api.exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas del ajuste AIMD con un reloj manual: la latencia de cada petición es el tiempo que la prueba
+ * avanza entre preHandle y afterCompletion. Latencia objetivo de 100 ms, límite inicial 2 (entre 1 y 4) salvo que la prueba arme otro.
+ */
+class LimiteCargaInterceptorTest {
+
+    private MeterRegistry meterRegistry;
+    private long ahora;
+    private LimiteCargaInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = interceptor(2, 4);
+    }
+
+    @Test
+    void rechazaLasPeticionesQueSuperanElLimite() {
+        HttpServletRequest primera = iniciar();
+        iniciar();
+
+        assertThatThrownBy(() -> interceptor.preHandle(peticion(), null, null))
+                .isInstanceOf(ServicioSaturadoException.class);
+        assertThat(enCurso()).isEqualTo(2.0);
+
+        // Al terminar una se libera su lugar
+        terminar(primera);
+        assertThat(interceptor.preHandle(peticion(), null, null)).isTrue();
+    }
+
+    @Test
+    void lasPeticionesRapidasConElLimiteEnUsoLoAgrandan() {
+        HttpServletRequest primera = iniciar();
+        HttpServletRequest segunda = iniciar();
+        avanzar(10);
+
+        // Al terminar queda 1 en curso de un límite 2: se está usando, sube 1/2
+        terminar(primera);
+        assertThat(limite()).isEqualTo(2.5);
+        // Con nada en curso no crece
+        terminar(segunda);
+        assertThat(limite()).isEqualTo(2.5);
+    }
+
+    @Test
+    void elLimiteNoSuperaElMaximo() {
+        interceptor = interceptor(10, 12);
+        for (int i = 0; i < 100; i++) {
+            // Con el límite lleno, cada una que termina rápido lo agranda
+            List<HttpServletRequest> enVuelo = new ArrayList<>();
+            for (int j = 0; j < (int) limite(); j++) {
+                enVuelo.add(iniciar());
+            }
+            enVuelo.forEach(this::terminar);
+        }
+        assertThat(limite()).isEqualTo(12.0);
+    }
+
+    @Test
+    void unaPeticionLentaLoReduceUnDiezPorCientoUnaVezPorLatenciaObjetivo() {
+        avanzar(100);
+        HttpServletRequest lenta = iniciar();
+        HttpServletRequest otraLenta = iniciar();
+        avanzar(300);
+
+        terminar(lenta);
+        assertThat(limite()).isEqualTo(1.8);
+        // Otra lenta en la misma ventana no lo vuelve a bajar
+        terminar(otraLenta);
+        assertThat(limite()).isEqualTo(1.8);
+
+        // Pasada la latencia objetivo sí, pero no por debajo del mínimo
+        for (int i = 0; i < 20; i++) {
+            HttpServletRequest otra = iniciar();
+            avanzar(150);
+            terminar(otra);
+        }
+        assertThat(limite()).isEqualTo(1.0);
+        assertThatThrownBy(() -> {
+            iniciar();
+            iniciar();
+        }).isInstanceOf(ServicioSaturadoException.class);
+    }
+
+    private LimiteCargaInterceptor interceptor(int limiteInicial, int limiteMaximo) {
+        meterRegistry = new SimpleMeterRegistry();
+        return new LimiteCargaInterceptor(meterRegistry, true, limiteInicial, 1, limiteMaximo, Duration.ofMillis(100),
+                () -> ahora);
+    }
+
+    private HttpServletRequest iniciar() {
+        HttpServletRequest request = peticion();
+        interceptor.preHandle(request, null, null);
+        return request;
+    }
+
+    private void terminar(HttpServletRequest request) {
+        interceptor.afterCompletion(request, null, null, null);
+    }
+
+    private void avanzar(long milisegundos) {
+        ahora += TimeUnit.MILLISECONDS.toNanos(milisegundos);
+    }
+
+    private double limite() {
+        return meterRegistry.get("productos.admision.limite").gauge().value();
+    }
+
+    private double enCurso() {
+        return meterRegistry.get("productos.admision.en.curso").gauge().value();
+    }
+
+    // Petición con atributos reales: el interceptor guarda en ella el instante de inicio
+    private static HttpServletRequest peticion() {
+        Map<String, Object> atributos = new HashMap<>();
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getAttribute(anyString())).thenAnswer(invocacion -> atributos.get(invocacion.<String>getArgument(0)));
+        doAnswer(invocacion -> atributos.put(invocacion.getArgument(0), invocacion.getArgument(1)))
+                .when(request).setAttribute(anyString(), any());
+        doAnswer(invocacion -> atributos.remove(invocacion.<String>getArgument(0)))
+                .when(request).removeAttribute(anyString());
+        return request;
+    }
+}
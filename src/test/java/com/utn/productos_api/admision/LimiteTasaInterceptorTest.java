@@ -0,0 +1,119 @@
+package com.utn.productos_api.admision;
+
+import com.utn.productos_api.exception.LimiteExcedidoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas del token bucket con un reloj manual: las fichas solo se recargan cuando la prueba avanza el tiempo.
+ */
+class LimiteTasaInterceptorTest {
+
+    private static final String IP = "10.0.0.1";
+
+    private long ahora;
+
+    @Test
+    void lasFichasSeRecarganConElTiempoHastaLaCapacidad() throws Exception {
+        LimiteTasaInterceptor interceptor = interceptor(10, 4);
+        HttpServletRequest request = peticion(IP, null);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(interceptor.preHandle(request, null, null)).isTrue();
+        }
+        assertThatThrownBy(() -> interceptor.preHandle(request, null, null))
+                .isInstanceOf(LimiteExcedidoException.class);
+
+        // 4 fichas por segundo: en 300 ms se recarga una sola
+        avanzar(300);
+        assertThat(interceptor.preHandle(request, null, null)).isTrue();
+        assertThatThrownBy(() -> interceptor.preHandle(request, null, null))
+                .isInstanceOf(LimiteExcedidoException.class);
+
+        // Tras un rato largo la cubeta se llena pero no pasa de la capacidad
+        avanzar(60_000);
+        for (int i = 0; i < 10; i++) {
+            assertThat(interceptor.preHandle(request, null, null)).isTrue();
+        }
+        assertThatThrownBy(() -> interceptor.preHandle(request, null, null))
+                .isInstanceOf(LimiteExcedidoException.class);
+    }
+
+    @Test
+    void elRetryAfterEsElTiempoHastaTenerLasFichasQueFaltan() throws Exception {
+        LimiteTasaInterceptor interceptor = interceptor(20, 2);
+        HttpServletRequest request = peticion(IP, null);
+        HandlerMethod listado = new HandlerMethod(new Endpoints(), Endpoints.class.getMethod("listar"));
+        for (int i = 0; i < 20; i++) {
+            interceptor.preHandle(request, null, null);
+        }
+
+        // Faltan 7 fichas a 2 por segundo: 3,5 s, redondeado hacia arriba
+        assertThat(segundosReintento(interceptor, request, listado)).isEqualTo(4);
+        // Con 2,5 fichas recargadas faltan 4,5: 2,25 s
+        avanzar(1250);
+        assertThat(segundosReintento(interceptor, request, listado)).isEqualTo(3);
+        // Una petición de costo 1 a la que le falta una fracción de ficha espera al menos 1 s
+        interceptor.preHandle(request, null, null);
+        interceptor.preHandle(request, null, null);
+        assertThat(segundosReintento(interceptor, request, null)).isEqualTo(1);
+    }
+
+    @Test
+    void unaClaveDesconocidaUsaLaCubetaDeSuIp() throws Exception {
+        LimiteTasaInterceptor interceptor = interceptor(2, 1);
+        interceptor.preHandle(peticion(IP, null), null, null);
+        interceptor.preHandle(peticion(IP, "inventada-1"), null, null);
+
+        // Inventar otra clave no da una cubeta nueva
+        assertThatThrownBy(() -> interceptor.preHandle(peticion(IP, "inventada-2"), null, null))
+                .isInstanceOf(LimiteExcedidoException.class);
+        // La clave registrada tiene su propia cubeta aunque venga de la misma IP
+        assertThat(interceptor.preHandle(peticion(IP, "registrada"), null, null)).isTrue();
+        assertThat(interceptor.preHandle(peticion(IP, "registrada"), null, null)).isTrue();
+        // Y otra IP también
+        assertThat(interceptor.preHandle(peticion("10.0.0.2", null), null, null)).isTrue();
+    }
+
+    private LimiteTasaInterceptor interceptor(int capacidad, int recargaPorSegundo) {
+        return new LimiteTasaInterceptor(new SimpleMeterRegistry(), true, capacidad, recargaPorSegundo, 1000,
+                List.of("registrada"), () -> ahora);
+    }
+
+    private void avanzar(long milisegundos) {
+        ahora += TimeUnit.MILLISECONDS.toNanos(milisegundos);
+    }
+
+    private static long segundosReintento(LimiteTasaInterceptor interceptor, HttpServletRequest request, Object handler) {
+        try {
+            interceptor.preHandle(request, null, handler);
+        } catch (LimiteExcedidoException e) {
+            return e.getSegundosReintento();
+        }
+        throw new AssertionError("Se esperaba un 429");
+    }
+
+    private static HttpServletRequest peticion(String ip, String apiKey) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn(ip);
+        when(request.getHeader(LimiteTasaInterceptor.HEADER_API_KEY)).thenReturn(apiKey);
+        return request;
+    }
+
+    static class Endpoints {
+
+        @CostoPeticion(7)
+        public void listar() {
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.utn.productos_api.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiarioStockTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void recuperaElUltimoStockDeCadaProducto() throws IOException {
+        try (DiarioStock diario = new DiarioStock(directorio, true)) {
+            diario.agregar(1L, 5);
+            diario.agregar(2L, 3);
+            long ultima = diario.agregar(1L, 7);
+            diario.sincronizar(ultima);
+        }
+
+        try (DiarioStock reabierto = new DiarioStock(directorio, true)) {
+            // El producto 1 cambió último: queda al final
+            assertThat(reabierto.recuperados()).containsExactly(Map.entry(2L, 3), Map.entry(1L, 7));
+            assertThat(reabierto.agregar(3L, 1)).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void rotarDevuelveLosSegmentosCerradosYDescartarLosBorra() throws IOException {
+        try (DiarioStock diario = new DiarioStock(directorio, false)) {
+            diario.agregar(1L, 5);
+            diario.agregar(2L, 3);
+
+            DiarioStock.Rotacion rotacion = diario.rotar();
+            diario.agregar(3L, 8);
+
+            assertThat(rotacion.hasta()).isEqualTo(2);
+            assertThat(rotacion.segmentos()).hasSize(1);
+            assertThat(segmentos()).hasSize(2);
+
+            diario.descartar(rotacion.segmentos());
+            assertThat(segmentos()).hasSize(1).doesNotContainAnyElementsOf(rotacion.segmentos());
+        }
+
+        // Solo queda el cambio registrado después de la rotación
+        try (DiarioStock reabierto = new DiarioStock(directorio, false)) {
+            assertThat(reabierto.recuperados()).containsExactly(Map.entry(3L, 8));
+        }
+    }
+
+    @Test
+    void unaRotacionConservaLosSegmentosQueNoSeDescartaron() throws IOException {
+        try (DiarioStock diario = new DiarioStock(directorio, false)) {
+            diario.agregar(1L, 5);
+            diario.rotar();
+            diario.agregar(2L, 3);
+
+            // Si el volcado anterior falló, la rotación siguiente devuelve también los segmentos previos
+            DiarioStock.Rotacion rotacion = diario.rotar();
+            assertThat(rotacion.hasta()).isEqualTo(2);
+            assertThat(rotacion.segmentos()).hasSize(2);
+        }
+    }
+
+    @Test
+    void laSecuenciaSigueDespuesDeDescartarTodoYReabrir() throws IOException {
+        try (DiarioStock diario = new DiarioStock(directorio, true)) {
+            diario.agregar(1L, 5);
+            diario.agregar(1L, 6);
+            diario.agregar(1L, 7);
+            diario.descartar(diario.rotar().segmentos());
+        }
+
+        try (DiarioStock reabierto = new DiarioStock(directorio, true)) {
+            assertThat(reabierto.recuperados()).isEmpty();
+            assertThat(reabierto.agregar(1L, 8)).isEqualTo(4);
+            reabierto.descartar(reabierto.rotar().segmentos());
+        }
+
+        // Otra vez sin cambios pendientes: la secuencia tampoco vuelve atrás
+        try (DiarioStock reabierto = new DiarioStock(directorio, true)) {
+            assertThat(reabierto.agregar(1L, 9)).isEqualTo(5);
+        }
+    }
+
+    @Test
+    void laRecuperacionSeCortaEnUnRegistroIncompleto() throws IOException {
+        try (DiarioStock diario = new DiarioStock(directorio, false)) {
+            diario.agregar(1L, 5);
+            diario.agregar(2L, 3);
+        }
+        // El proceso se cayó a mitad de un registro
+        try (FileChannel canal = FileChannel.open(segmentos().get(segmentos().size() - 1), StandardOpenOption.APPEND)) {
+            canal.write(ByteBuffer.wrap(new byte[10]));
+        }
+
+        try (DiarioStock reabierto = new DiarioStock(directorio, false)) {
+            assertThat(reabierto.recuperados()).containsExactly(Map.entry(1L, 5), Map.entry(2L, 3));
+            assertThat(reabierto.agregar(3L, 1)).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void laRecuperacionSeCortaEnUnRegistroDaniado() throws IOException {
+        try (DiarioStock diario = new DiarioStock(directorio, false)) {
+            diario.agregar(1L, 5);
+            diario.agregar(2L, 3);
+        }
+        // Cambia un byte del stock del último registro: el CRC ya no coincide
+        Path segmento = segmentos().get(segmentos().size() - 1);
+        byte[] contenido = Files.readAllBytes(segmento);
+        contenido[contenido.length - 5] ^= 1;
+        Files.write(segmento, contenido);
+
+        try (DiarioStock reabierto = new DiarioStock(directorio, false)) {
+            assertThat(reabierto.recuperados()).containsExactly(Map.entry(1L, 5));
+        }
+    }
+
+    private List<Path> segmentos() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.sorted().toList();
+        }
+    }
+}
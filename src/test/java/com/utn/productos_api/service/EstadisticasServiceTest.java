@@ -0,0 +1,155 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.dto.EstadisticaCategoriaDTO;
+import com.utn.productos_api.dto.EstadisticasDTO;
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.dto.TotalesCategoriaDTO;
+import com.utn.productos_api.event.ProductoCambiadoEvent;
+import com.utn.productos_api.model.Categoria;
+import com.utn.productos_api.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas de los totales incrementales de EstadisticasService. La base es un mock de ProductoRepository
+ * que devuelve filas armadas en cada prueba; MotorStock no tiene cambios pendientes, así que volcar no hace nada.
+ */
+class EstadisticasServiceTest {
+
+    private final List<TotalesCategoriaDTO> enBase = new ArrayList<>();
+    // Lo que pasa mientras la base calcula los totales (la próxima consulta lo ejecuta una vez)
+    private Runnable duranteLaConsulta;
+    private ProductoRepository productoRepository;
+    private EstadisticasService estadisticasService;
+
+    @BeforeEach
+    void setUp() {
+        productoRepository = mock(ProductoRepository.class);
+        when(productoRepository.totalesPorCategoria()).thenAnswer(invocacion -> {
+            List<TotalesCategoriaDTO> totales = List.copyOf(enBase);
+            if (duranteLaConsulta != null) {
+                Runnable tarea = duranteLaConsulta;
+                duranteLaConsulta = null;
+                tarea.run();
+            }
+            return totales;
+        });
+        MotorStock motorStock = new MotorStock(productoRepository, new JdbcTemplate(), new TransactionTemplate(),
+                evento -> {
+                }, Duration.ofMinutes(10), 200, Duration.ofMinutes(5), Duration.ofMinutes(1));
+        estadisticasService = new EstadisticasService(productoRepository, motorStock, Duration.ofMinutes(10));
+        // Arranca con la base vacía, como al iniciar la aplicación
+        estadisticasService.reconciliar();
+    }
+
+    @Test
+    void cadaCambioAplicaLaDiferenciaSinConsultarLaBase() {
+        ProductoResponseDTO teclado = producto(1L, 10.0, 5, Categoria.ELECTRONICA);
+        cambio(ProductoCambiadoEvent.Tipo.CREADO, null, teclado);
+        cambio(ProductoCambiadoEvent.Tipo.CREADO, null, producto(2L, 2.5, 4, Categoria.ROPA));
+        cambio(ProductoCambiadoEvent.Tipo.STOCK, teclado, teclado.conStock(8));
+        // Un PUT que le cambia la categoría lo mueve de un total al otro
+        cambio(ProductoCambiadoEvent.Tipo.ACTUALIZADO, teclado.conStock(8), producto(1L, 10.0, 8, Categoria.HOGAR));
+
+        EstadisticasDTO estadisticas = estadisticasService.obtenerEstadisticas();
+        assertThat(estadisticas.getCantidadProductos()).isEqualTo(2);
+        assertThat(estadisticas.getStockTotal()).isEqualTo(12);
+        assertThat(estadisticas.getValorInventario()).isEqualTo(new BigDecimal("90.00"));
+        assertThat(categoria(estadisticas, Categoria.ELECTRONICA).getCantidadProductos()).isZero();
+        assertThat(categoria(estadisticas, Categoria.HOGAR).getStockTotal()).isEqualTo(8);
+        assertThat(categoria(estadisticas, Categoria.ROPA).getValorInventario()).isEqualTo(new BigDecimal("10.00"));
+        // Solo la reconciliación del inicio
+        verify(productoRepository, times(1)).totalesPorCategoria();
+    }
+
+    @Test
+    void unaEliminacionConFotoPreviaNoDejaReconciliacionPendiente() {
+        ProductoResponseDTO teclado = producto(1L, 10.0, 5, Categoria.ELECTRONICA);
+        cambio(ProductoCambiadoEvent.Tipo.CREADO, null, teclado);
+        cambio(ProductoCambiadoEvent.Tipo.ELIMINADO, teclado, null);
+
+        estadisticasService.revisar();
+
+        assertThat(estadisticasService.obtenerEstadisticas().getCantidadProductos()).isZero();
+        verify(productoRepository, times(1)).totalesPorCategoria();
+    }
+
+    @Test
+    void unaEliminacionSinFotoPreviaSeCorrigeEnLaProximaRevision() {
+        cambio(ProductoCambiadoEvent.Tipo.CREADO, null, producto(1L, 10.0, 5, Categoria.ELECTRONICA));
+        cambio(ProductoCambiadoEvent.Tipo.ELIMINADO, null, null);
+        assertThat(estadisticasService.obtenerEstadisticas().getCantidadProductos()).isEqualTo(1);
+
+        estadisticasService.revisar();
+
+        assertThat(estadisticasService.obtenerEstadisticas().getCantidadProductos()).isZero();
+        verify(productoRepository, times(2)).totalesPorCategoria();
+    }
+
+    @Test
+    void laReconciliacionCorrigeUnDesvio() {
+        cambio(ProductoCambiadoEvent.Tipo.CREADO, null, producto(1L, 10.0, 5, Categoria.ELECTRONICA));
+        enBase.add(new TotalesCategoriaDTO(Categoria.ELECTRONICA, 1L, 7L, 7000L));
+
+        estadisticasService.reconciliar();
+
+        EstadisticasDTO estadisticas = estadisticasService.obtenerEstadisticas();
+        assertThat(estadisticas.getStockTotal()).isEqualTo(7);
+        assertThat(estadisticas.getValorInventario()).isEqualTo(new BigDecimal("70.00"));
+        assertThat(estadisticas.getUltimaReconciliacion()).isNotNull();
+    }
+
+    @Test
+    void unaReconciliacionConCambiosEnCursoSeDescartaYQuedaPendiente() {
+        // El cambio llega mientras se calcula el GROUP BY: el resultado ya no incluye el producto nuevo
+        duranteLaConsulta = () -> {
+            cambio(ProductoCambiadoEvent.Tipo.CREADO, null, producto(1L, 10.0, 5, Categoria.ELECTRONICA));
+            enBase.add(new TotalesCategoriaDTO(Categoria.ELECTRONICA, 1L, 5L, 5000L));
+        };
+
+        estadisticasService.reconciliar();
+
+        assertThat(estadisticasService.obtenerEstadisticas().getCantidadProductos()).isEqualTo(1);
+        // Sigue pendiente: la próxima revisión vuelve a consultar
+        estadisticasService.revisar();
+        verify(productoRepository, times(3)).totalesPorCategoria();
+        assertThat(estadisticasService.obtenerEstadisticas().getCantidadProductos()).isEqualTo(1);
+    }
+
+    @Test
+    void sinCambiosNiPendientesLaRevisionNoConsultaLaBase() {
+        estadisticasService.revisar();
+        estadisticasService.revisar();
+
+        verify(productoRepository, times(1)).totalesPorCategoria();
+    }
+
+    private void cambio(ProductoCambiadoEvent.Tipo tipo, ProductoResponseDTO anterior, ProductoResponseDTO actual) {
+        Long id = actual != null ? actual.id() : anterior != null ? anterior.id() : 1L;
+        estadisticasService.alCambiarProducto(new ProductoCambiadoEvent(tipo, id, anterior, actual));
+    }
+
+    private static ProductoResponseDTO producto(Long id, double precio, int stock, Categoria categoria) {
+        return new ProductoResponseDTO(id, "Producto " + id, null, precio, stock, categoria);
+    }
+
+    private static EstadisticaCategoriaDTO categoria(EstadisticasDTO estadisticas, Categoria categoria) {
+        return estadisticas.getCategorias().stream()
+                .filter(c -> c.getCategoria() == categoria)
+                .findFirst()
+                .orElseThrow();
+    }
+}
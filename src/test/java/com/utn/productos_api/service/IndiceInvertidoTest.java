@@ -0,0 +1,99 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.dto.ProductoResponseDTO;
+import com.utn.productos_api.model.Categoria;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndiceInvertidoTest {
+
+    private final IndiceInvertido indice = new IndiceInvertido();
+
+    @Test
+    void tokenizarQuitaAcentosMayusculasYSeparadores() {
+        assertThat(IndiceInvertido.tokenizar("Cámara RÉFLEX-Digital, 24MP"))
+                .containsExactly("camara", "reflex", "digital", "24mp");
+        assertThat(IndiceInvertido.tokenizar("  ")).isEmpty();
+    }
+
+    @Test
+    void encuentraSinDistinguirAcentosNiMayusculas() {
+        indice.indexar(producto(1L, "Cámara Réflex", null));
+
+        assertThat(ids("camara reflex")).containsExactly(1L);
+        assertThat(ids("CÁMARA")).containsExactly(1L);
+    }
+
+    @Test
+    void lasPalabrasVaciasNoSeIndexanNiFiltran() {
+        indice.indexar(producto(1L, "Zapatillas de running", null));
+        indice.indexar(producto(2L, "Pelota de deportes", null));
+
+        // "de" en el medio de la consulta se descarta
+        assertThat(ids("zapatillas de running")).containsExactly(1L);
+        // Al final se busca como prefijo: no coincide con la palabra vacía, sí con "deportes"
+        assertThat(ids("de")).containsExactly(2L);
+    }
+
+    @Test
+    void laUltimaPalabraPuedeEstarIncompleta() {
+        indice.indexar(producto(1L, "Teclado mecánico", null));
+        indice.indexar(producto(2L, "Mouse inalámbrico", null));
+
+        assertThat(ids("tecl")).containsExactly(1L);
+        assertThat(ids("teclado mec")).containsExactly(1L);
+        assertThat(ids("mouse tecl")).isEmpty();
+    }
+
+    @Test
+    void ordenaPorRelevancia() {
+        indice.indexar(producto(1L, "Mouse", "Combina con cualquier teclado"));
+        indice.indexar(producto(2L, "Teclados", null));
+        indice.indexar(producto(3L, "Teclado mecánico", null));
+        indice.indexar(producto(4L, "Teclado inalámbrico", null));
+
+        // Nombre exacto (3 y 4, por ID) > prefijo en el nombre (2) > descripción (1)
+        List<IndiceInvertido.Coincidencia> coincidencias = indice.buscar("teclado", 10);
+        assertThat(coincidencias.stream().map(c -> c.producto().id()).toList()).containsExactly(3L, 4L, 2L, 1L);
+        assertThat(coincidencias.get(0).puntaje()).isGreaterThan(coincidencias.get(2).puntaje());
+        assertThat(ids("teclado", 2)).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void reindexarYEliminarQuitanLosTerminosAnteriores() {
+        indice.indexar(producto(1L, "Teclado", null));
+        indice.indexar(producto(1L, "Monitor", null));
+        assertThat(ids("teclado")).isEmpty();
+        assertThat(ids("monitor")).containsExactly(1L);
+
+        indice.eliminar(1L);
+        assertThat(ids("monitor")).isEmpty();
+        assertThat(indice.tamanio()).isZero();
+    }
+
+    @Test
+    void actualizarStockNoCambiaLosTerminos() {
+        indice.indexar(producto(1L, "Teclado", null));
+
+        indice.actualizarStock(Map.of(1L, 3, 2L, 8));
+
+        assertThat(indice.buscar("teclado", 10).get(0).producto().stock()).isEqualTo(3);
+        assertThat(indice.contiene(2L)).isFalse();
+    }
+
+    private List<Long> ids(String consulta) {
+        return ids(consulta, 10);
+    }
+
+    private List<Long> ids(String consulta, int limite) {
+        return indice.buscar(consulta, limite).stream().map(c -> c.producto().id()).toList();
+    }
+
+    private static ProductoResponseDTO producto(Long id, String nombre, String descripcion) {
+        return new ProductoResponseDTO(id, nombre, descripcion, 10.0, 5, Categoria.ELECTRONICA);
+    }
+}
@@ -0,0 +1,177 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.exception.ProductoNotFoundException;
+import com.utn.productos_api.exception.ServicioSaturadoException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Pruebas de concurrencia de LecturasCompartidas. Los loaders se bloquean en un latch para que
+ * las demás lecturas lleguen con la consulta de la líder todavía en vuelo.
+ */
+class LecturasCompartidasTest {
+
+    private static final Long ID = 1L;
+    private static final int HILOS = 8;
+    private static final Duration ESPERA = Duration.ofSeconds(10);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Cache cache = new ConcurrentMapCache("productos", false);
+    private final AtomicInteger consultas = new AtomicInteger();
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private LecturasCompartidas lecturasCompartidas;
+    private ExecutorService hilos;
+
+    @BeforeEach
+    void setUp() {
+        lecturasCompartidas = new LecturasCompartidas(meterRegistry);
+        hilos = Executors.newFixedThreadPool(HILOS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        hilos.shutdownNow();
+    }
+
+    @Test
+    void lecturasConcurrentesHacenUnaSolaConsulta() throws Exception {
+        List<Future<String>> resultados = enParalelo(() -> leer(Duration.ofSeconds(10), () -> consultar("producto")));
+        esperarEnVuelo(1);
+        // Las demás ya están esperando a la líder o la van a encontrar en la caché
+        Thread.sleep(50);
+        liberar.countDown();
+
+        for (Future<String> resultado : resultados) {
+            assertThat(resultado.get(10, TimeUnit.SECONDS)).isEqualTo("producto");
+        }
+        assertThat(consultas.get()).isEqualTo(1);
+        assertThat(cache.get(ID).get()).isEqualTo("producto");
+        assertThat(contador("lider")).isEqualTo(1.0);
+        assertThat(enVuelo()).isZero();
+    }
+
+    @Test
+    void laExcepcionDeLaLiderLaRecibenTodasYNoSeCachea() throws Exception {
+        List<Future<String>> resultados = enParalelo(() -> leer(Duration.ofSeconds(10), () -> {
+            consultar("nunca");
+            throw new ProductoNotFoundException(ID);
+        }));
+        esperarEnVuelo(1);
+        Thread.sleep(50);
+        liberar.countDown();
+
+        for (Future<String> resultado : resultados) {
+            assertThatThrownBy(() -> resultado.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(ProductoNotFoundException.class);
+        }
+        assertThat(cache.get(ID)).isNull();
+        assertThat(enVuelo()).isZero();
+    }
+
+    @Test
+    void unaInvalidacionDuranteLaConsultaNoDejaElValorViejoEnCache() throws Exception {
+        Future<String> lider = hilos.submit(() -> leer(Duration.ofSeconds(10), () -> consultar("viejo")));
+        esperarEnVuelo(1);
+
+        // El producto cambia mientras la líder consulta
+        lecturasCompartidas.invalidar(cache, ID);
+        cache.evict(ID);
+        // Una lectura posterior al cambio no espera a la líder: hace su propia consulta
+        String posterior = leer(Duration.ofSeconds(10), () -> "nuevo");
+        liberar.countDown();
+
+        assertThat(lider.get(10, TimeUnit.SECONDS)).isEqualTo("viejo");
+        assertThat(posterior).isEqualTo("nuevo");
+        // El valor de la líder se entrega pero no queda: la caché tiene el posterior o nada
+        Cache.ValueWrapper enCache = cache.get(ID);
+        assertThat(enCache == null || "nuevo".equals(enCache.get())).isTrue();
+    }
+
+    @Test
+    void quienEsperaMasQueElMaximoRecibe503() throws Exception {
+        Future<String> lider = hilos.submit(() -> leer(Duration.ofSeconds(10), () -> consultar("lento")));
+        esperarEnVuelo(1);
+
+        assertThatThrownBy(() -> leer(Duration.ofMillis(50), () -> consultar("otra")))
+                .isInstanceOf(ServicioSaturadoException.class);
+        assertThat(contador("tiempo_agotado")).isEqualTo(1.0);
+
+        // La líder termina igual y deja el valor para las siguientes
+        liberar.countDown();
+        assertThat(lider.get(10, TimeUnit.SECONDS)).isEqualTo("lento");
+        assertThat(leer(Duration.ofMillis(50), () -> consultar("otra"))).isEqualTo("lento");
+        assertThat(consultas.get()).isEqualTo(1);
+    }
+
+    private String leer(Duration esperaMaxima, Supplier<String> loader) {
+        return lecturasCompartidas.leer(cache, ID, esperaMaxima, loader);
+    }
+
+    // Loader que cuenta la consulta y se queda en vuelo hasta que la prueba lo libera
+    private String consultar(String valor) {
+        consultas.incrementAndGet();
+        try {
+            if (!liberar.await(ESPERA.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("La prueba no liberó la consulta");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        return valor;
+    }
+
+    private List<Future<String>> enParalelo(Supplier<String> lectura) {
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<String>> resultados = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            resultados.add(hilos.submit(() -> {
+                largada.await();
+                return lectura.get();
+            }));
+        }
+        largada.countDown();
+        return resultados;
+    }
+
+    private void esperarEnVuelo(int cantidad) throws InterruptedException {
+        long limite = System.nanoTime() + ESPERA.toNanos();
+        while (enVuelo() < cantidad) {
+            if (System.nanoTime() > limite) {
+                throw new IllegalStateException("La consulta nunca quedó en vuelo");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private double enVuelo() {
+        return meterRegistry.get("productos.lecturas.en.vuelo").gauge().value();
+    }
+
+    private double contador(String resultado) {
+        return meterRegistry.get("productos.lecturas.compartidas")
+                .tag("cache", "productos").tag("resultado", resultado).counter().count();
+    }
+}
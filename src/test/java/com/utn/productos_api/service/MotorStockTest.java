@@ -0,0 +1,354 @@
+package com.utn.productos_api.service;
+
+import com.utn.productos_api.event.StockInactivoEvent;
+import com.utn.productos_api.exception.PrecondicionFallidaException;
+import com.utn.productos_api.exception.StockInsuficienteException;
+import com.utn.productos_api.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Pruebas de concurrencia de MotorStock. La base es un mapa en memoria: findStockById lee de él
+ * y el batch de JDBC del volcado escribe en él.
+ */
+class MotorStockTest {
+
+    private static final long ID = 1L;
+    private static final int HILOS = 8;
+    // Bien por encima del TTL y del intervalo de volcado que se le pasan al motor
+    private static final Duration INACTIVIDAD = Duration.ofMillis(20);
+    private static final Consumer<MotorStock.CambioStock> SIN_AVISO = cambio -> {
+    };
+
+    private final Map<Long, Integer> base = new ConcurrentHashMap<>();
+    private final List<StockInactivoEvent> retiros = new CopyOnWriteArrayList<>();
+    private ProductoRepository productoRepository;
+    private MotorStock motorStock;
+
+    @BeforeEach
+    void setUp() {
+        productoRepository = mock(ProductoRepository.class);
+        when(productoRepository.findStockById(anyLong()))
+                .thenAnswer(invocacion -> Optional.ofNullable(base.get(invocacion.<Long>getArgument(0))));
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> filas, int tamanioLote,
+                                           ParameterizedPreparedStatementSetter<T> setter) {
+                for (T fila : filas) {
+                    Object[] valores = (Object[]) fila;
+                    base.put((Long) valores[1], (Integer) valores[0]);
+                }
+                return new int[0][];
+            }
+        };
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definicion) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus estado) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus estado) {
+            }
+        });
+
+        ApplicationEventPublisher eventPublisher = evento -> retiros.add((StockInactivoEvent) evento);
+        motorStock = new MotorStock(productoRepository, jdbcTemplate, transactionTemplate, eventPublisher,
+                INACTIVIDAD, 1, Duration.ofMillis(5), Duration.ofMillis(5));
+    }
+
+    @Test
+    void reservasConcurrentesNoVendenMasQueElStock() throws Exception {
+        base.put(ID, 1000);
+        AtomicInteger vendidas = new AtomicInteger();
+        AtomicInteger rechazadas = new AtomicInteger();
+
+        enParalelo(hilo -> {
+            for (int i = 0; i < 200; i++) {
+                try {
+                    motorStock.reservar(ID, 1, SIN_AVISO);
+                    vendidas.incrementAndGet();
+                } catch (StockInsuficienteException e) {
+                    rechazadas.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(vendidas.get()).isEqualTo(1000);
+        assertThat(rechazadas.get()).isEqualTo(HILOS * 200 - 1000);
+        assertThat(motorStock.stockVigente(ID, null)).isZero();
+        motorStock.volcar();
+        assertThat(base.get(ID)).isZero();
+    }
+
+    @Test
+    void reservarYLiberarConcurrentesConservanElTotal() throws Exception {
+        base.put(ID, 500);
+
+        enParalelo(hilo -> {
+            for (int i = 0; i < 5000; i++) {
+                motorStock.reservar(ID, 1, SIN_AVISO);
+                motorStock.liberar(ID, 1, SIN_AVISO);
+            }
+        });
+
+        assertThat(motorStock.stockVigente(ID, null)).isEqualTo(500);
+    }
+
+    @Test
+    void establecerSiConcurrenteAplicaUnSoloCambio() throws Exception {
+        base.put(ID, 10);
+        AtomicInteger aplicados = new AtomicInteger();
+        AtomicInteger rechazados = new AtomicInteger();
+
+        enParalelo(hilo -> {
+            try {
+                motorStock.establecerSi(ID, 10, 100 + hilo, SIN_AVISO);
+                aplicados.incrementAndGet();
+            } catch (PrecondicionFallidaException e) {
+                rechazados.incrementAndGet();
+            }
+        });
+
+        assertThat(aplicados.get()).isEqualTo(1);
+        assertThat(rechazados.get()).isEqualTo(HILOS - 1);
+        assertThat(motorStock.stockVigente(ID, null)).isBetween(100, 100 + HILOS - 1);
+    }
+
+    @Test
+    void losAvisosDeUnProductoSalenEnElOrdenDeLosCambios() throws Exception {
+        base.put(ID, 0);
+        List<MotorStock.CambioStock> avisos = new CopyOnWriteArrayList<>();
+
+        enParalelo(hilo -> {
+            for (int i = 0; i < 1000; i++) {
+                motorStock.establecer(ID, hilo * 1000 + i, avisos::add);
+            }
+        });
+
+        // Cada aviso parte del stock que dejó el anterior: el último es el vigente
+        assertThat(avisos).hasSize(HILOS * 1000);
+        for (int i = 1; i < avisos.size(); i++) {
+            assertThat(avisos.get(i).getAnterior()).isEqualTo(avisos.get(i - 1).getActual());
+        }
+        assertThat(avisos.get(avisos.size() - 1).getActual()).isEqualTo(motorStock.stockVigente(ID, null));
+    }
+
+    @Test
+    void volcadoConcurrenteDejaEnLaBaseElUltimoValor() throws Exception {
+        base.put(ID, 0);
+        base.put(2L, 0);
+        AtomicBoolean terminado = new AtomicBoolean();
+        ExecutorService volcador = Executors.newSingleThreadExecutor();
+        Future<?> volcados = volcador.submit(() -> {
+            while (!terminado.get()) {
+                motorStock.volcar();
+            }
+        });
+
+        try {
+            enParalelo(hilo -> {
+                for (int i = 0; i < 5000; i++) {
+                    motorStock.liberar(hilo % 2 == 0 ? ID : 2L, 1, SIN_AVISO);
+                }
+            });
+        } finally {
+            terminado.set(true);
+            volcados.get(10, TimeUnit.SECONDS);
+            volcador.shutdown();
+        }
+        motorStock.volcar();
+
+        assertThat(base.get(ID)).isEqualTo(HILOS / 2 * 5000);
+        assertThat(base.get(2L)).isEqualTo(HILOS / 2 * 5000);
+    }
+
+    @Test
+    void noRetiraContadoresSinVolcar() throws Exception {
+        base.put(ID, 10);
+        motorStock.reservar(ID, 3, SIN_AVISO);
+        Thread.sleep(INACTIVIDAD.toMillis() * 2);
+
+        motorStock.desalojarInactivos();
+
+        assertThat(retiros).isEmpty();
+        assertThat(motorStock.stockVigente(ID, 10)).isEqualTo(7);
+        verify(productoRepository, times(1)).findStockById(ID);
+    }
+
+    @Test
+    void retiraContadoresVolcadosEInactivosYLosVuelveACargar() throws Exception {
+        base.put(ID, 10);
+        motorStock.reservar(ID, 3, SIN_AVISO);
+        motorStock.volcar();
+        Thread.sleep(INACTIVIDAD.toMillis() * 2);
+
+        motorStock.desalojarInactivos();
+
+        assertThat(retiros).hasSize(1);
+        assertThat(retiros.get(0).getStocks()).containsExactly(Map.entry(ID, 7));
+        // Sin contador vale el stock leído de la base (o de las copias que la siguen)
+        assertThat(motorStock.stockVigente(ID, 7)).isEqualTo(7);
+        assertThat(motorStock.reservar(ID, 2, SIN_AVISO).getActual()).isEqualTo(5);
+        verify(productoRepository, times(2)).findStockById(ID);
+    }
+
+    @Test
+    void retiroConcurrenteNoPierdeCambios() throws Exception {
+        base.put(ID, 0);
+        AtomicBoolean terminado = new AtomicBoolean();
+        ExecutorService mantenimiento = Executors.newSingleThreadExecutor();
+        Future<?> vueltas = mantenimiento.submit(() -> {
+            while (!terminado.get()) {
+                motorStock.volcar();
+                motorStock.desalojarInactivos();
+            }
+        });
+
+        try {
+            enParalelo(hilo -> {
+                for (int i = 0; i < 200; i++) {
+                    motorStock.liberar(ID, 1, SIN_AVISO);
+                    // Pausas más largas que la inactividad, para que el contador se retire entre cambios
+                    if (ThreadLocalRandom.current().nextInt(20) == 0) {
+                        dormir(INACTIVIDAD.toMillis() * 2);
+                    }
+                }
+            });
+        } finally {
+            terminado.set(true);
+            vueltas.get(10, TimeUnit.SECONDS);
+            mantenimiento.shutdown();
+        }
+        motorStock.volcar();
+
+        assertThat(base.get(ID)).isEqualTo(HILOS * 200);
+        assertThat(motorStock.stockVigente(ID, base.get(ID))).isEqualTo(HILOS * 200);
+        assertThat(retiros).isNotEmpty();
+    }
+
+    @Test
+    void conDiarioLaRecuperacionNoPisaUnCambioPosteriorYaVolcado(@TempDir Path directorio) throws IOException {
+        base.put(ID, 10);
+        try (DiarioStock diario = new DiarioStock(directorio, false)) {
+            motorStock.usarDiario(diario);
+            // PATCH con Prefer: respond-async y después una reserva sincrónica
+            motorStock.establecer(ID, 5, SIN_AVISO);
+            motorStock.reservar(ID, 2, SIN_AVISO);
+            // El volcado programado de MotorStock escribe la reserva en la base
+            // y la API se cae antes de que ColaStockAsincrona descarte el diario
+            motorStock.volcar();
+        }
+        assertThat(base.get(ID)).isEqualTo(3);
+
+        try (DiarioStock reabierto = new DiarioStock(directorio, false)) {
+            assertThat(reabierto.recuperados()).containsEntry(ID, 3);
+        }
+    }
+
+    @Test
+    void conDiarioElUltimoRegistroEsElStockVigente(@TempDir Path directorio) throws Exception {
+        base.put(ID, 10_000);
+        AtomicBoolean terminado = new AtomicBoolean();
+        ExecutorService volcador = Executors.newSingleThreadExecutor();
+        try (DiarioStock diario = new DiarioStock(directorio, false)) {
+            motorStock.usarDiario(diario);
+            Future<?> volcados = volcador.submit(() -> {
+                while (!terminado.get()) {
+                    motorStock.volcar();
+                }
+            });
+            try {
+                enParalelo(hilo -> {
+                    for (int i = 0; i < 500; i++) {
+                        if (hilo % 2 == 0) {
+                            motorStock.reservar(ID, 1, SIN_AVISO);
+                        } else {
+                            motorStock.liberar(ID, 1, SIN_AVISO);
+                        }
+                    }
+                });
+            } finally {
+                terminado.set(true);
+                volcados.get(10, TimeUnit.SECONDS);
+                volcador.shutdown();
+            }
+        }
+
+        // Caída sin el último volcado: la recuperación vuelve al stock vigente, nunca a uno anterior
+        try (DiarioStock reabierto = new DiarioStock(directorio, false)) {
+            assertThat(reabierto.recuperados().get(ID)).isEqualTo(motorStock.stockVigente(ID, null)).isEqualTo(10_000);
+        }
+    }
+
+    // Corre la tarea en HILOS hilos a la vez (recibe el número de hilo) y espera a que terminen todos
+    private static void enParalelo(Consumer<Integer> tarea) throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            Future<?>[] resultados = new Future<?>[HILOS];
+            for (int i = 0; i < HILOS; i++) {
+                int hilo = i;
+                resultados[i] = hilos.submit(() -> {
+                    largada.await();
+                    tarea.accept(hilo);
+                    return null;
+                });
+            }
+            largada.countDown();
+            for (Future<?> resultado : resultados) {
+                resultado.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    private static void dormir(long milisegundos) {
+        try {
+            Thread.sleep(milisegundos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}